@@ -0,0 +1,206 @@
+package plc.project;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Compares two JMH JSON result files and exits with status {@code 1} if any
+ * benchmark present in both regressed by more than the threshold (a
+ * percentage, {@code 10} by default). Throughput scores regress when they
+ * fall; every other mode regresses when the score rises.
+ *
+ * Usage: {@code BenchmarkComparison <baseline.json> <results.json> [threshold]}
+ */
+public final class BenchmarkComparison {
+
+    private BenchmarkComparison() {}
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: BenchmarkComparison <baseline.json> <results.json> [threshold]");
+            System.exit(2);
+        }
+        Map<String, Result> baseline = read(args[0]);
+        Map<String, Result> results = read(args[1]);
+        double threshold = args.length > 2 ? Double.parseDouble(args[2]) : 10.0;
+        int regressions = 0;
+        for (Map.Entry<String, Result> entry : results.entrySet()) {
+            Result current = entry.getValue();
+            Result previous = baseline.get(entry.getKey());
+            if (previous == null || !previous.mode.equals(current.mode)) {
+                System.out.printf(Locale.ROOT, "%-70s %14.3f %-8s (no baseline)%n", entry.getKey(), current.score, current.unit);
+                continue;
+            }
+            double change = current.regression(previous);
+            boolean regressed = change > threshold;
+            if (regressed) {
+                regressions++;
+            }
+            System.out.printf(Locale.ROOT, "%-70s %14.3f %-8s %+8.2f%% %s%n", entry.getKey(), current.score, current.unit, change, regressed ? "REGRESSED" : "ok");
+        }
+        if (regressions > 0) {
+            System.out.printf(Locale.ROOT, "%d benchmark(s) regressed by more than %.1f%% against %s.%n", regressions, threshold, args[0]);
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Reads a JMH JSON result file, keyed by benchmark name and parameters.
+     */
+    static Map<String, Result> read(String path) throws IOException {
+        Object json = new JsonReader(new String(Files.readAllBytes(Paths.get(path)), StandardCharsets.UTF_8)).read();
+        Map<String, Result> results = new LinkedHashMap<>();
+        for (Object element : (List<?>) json) {
+            Map<?, ?> benchmark = (Map<?, ?>) element;
+            StringBuilder key = new StringBuilder((String) benchmark.get("benchmark"));
+            Object params = benchmark.get("params");
+            if (params instanceof Map) {
+                key.append(new TreeMap<>((Map<?, ?>) params));
+            }
+            Map<?, ?> metric = (Map<?, ?>) benchmark.get("primaryMetric");
+            results.put(key.toString(), new Result((String) benchmark.get("mode"), number(metric.get("score")), (String) metric.get("scoreUnit")));
+        }
+        return results;
+    }
+
+    private static double number(Object value) {
+        return value instanceof Number ? ((Number) value).doubleValue() : Double.parseDouble(String.valueOf(value));
+    }
+
+    static final class Result {
+
+        private final String mode;
+        private final double score;
+        private final String unit;
+
+        Result(String mode, double score, String unit) {
+            this.mode = mode;
+            this.score = score;
+            this.unit = unit;
+        }
+
+        /**
+         * Returns how much worse this result is than the baseline, as a
+         * percentage (negative for an improvement).
+         */
+        double regression(Result baseline) {
+            double change = (score - baseline.score) / baseline.score * 100.0;
+            return mode.equals("thrpt") ? -change : change;
+        }
+
+    }
+
+    /**
+     * A minimal JSON reader for JMH's result format, producing maps, lists,
+     * strings, doubles, booleans and {@code null}.
+     */
+    private static final class JsonReader {
+
+        private final String input;
+        private int index = 0;
+
+        private JsonReader(String input) {
+            this.input = input;
+        }
+
+        Object read() {
+            skipWhitespace();
+            char c = input.charAt(index);
+            if (c == '{') {
+                Map<String, Object> object = new LinkedHashMap<>();
+                index++;
+                while (!consume('}')) {
+                    consume(',');
+                    skipWhitespace();
+                    String name = (String) read();
+                    expect(':');
+                    object.put(name, read());
+                }
+                return object;
+            } else if (c == '[') {
+                List<Object> array = new ArrayList<>();
+                index++;
+                while (!consume(']')) {
+                    consume(',');
+                    array.add(read());
+                }
+                return array;
+            } else if (c == '"') {
+                return readString();
+            } else if (input.startsWith("true", index)) {
+                index += 4;
+                return Boolean.TRUE;
+            } else if (input.startsWith("false", index)) {
+                index += 5;
+                return Boolean.FALSE;
+            } else if (input.startsWith("null", index)) {
+                index += 4;
+                return null;
+            }
+            int start = index;
+            while (index < input.length() && "+-0123456789.eE".indexOf(input.charAt(index)) >= 0) {
+                index++;
+            }
+            if (start == index) {
+                throw new IllegalArgumentException("Unexpected character '" + c + "' at " + index + ".");
+            }
+            return Double.parseDouble(input.substring(start, index));
+        }
+
+        private String readString() {
+            StringBuilder builder = new StringBuilder();
+            index++;
+            for (char c; (c = input.charAt(index++)) != '"'; ) {
+                if (c == '\\') {
+                    c = input.charAt(index++);
+                    switch (c) {
+                        case 'b': builder.append('\b'); break;
+                        case 'f': builder.append('\f'); break;
+                        case 'n': builder.append('\n'); break;
+                        case 'r': builder.append('\r'); break;
+                        case 't': builder.append('\t'); break;
+                        case 'u':
+                            builder.append((char) Integer.parseInt(input.substring(index, index + 4), 16));
+                            index += 4;
+                            break;
+                        default: builder.append(c);
+                    }
+                } else {
+                    builder.append(c);
+                }
+            }
+            return builder.toString();
+        }
+
+        private boolean consume(char c) {
+            skipWhitespace();
+            if (index < input.length() && input.charAt(index) == c) {
+                index++;
+                return true;
+            }
+            return false;
+        }
+
+        private void expect(char c) {
+            if (!consume(c)) {
+                throw new IllegalArgumentException("Expected '" + c + "' at " + index + ".");
+            }
+        }
+
+        private void skipWhitespace() {
+            while (index < input.length() && Character.isWhitespace(input.charAt(index))) {
+                index++;
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,37 @@
+package plc.project;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The representative programs shared by the benchmarks, stored as resources
+ * under {@code programs/} next to this class.
+ */
+final class BenchmarkPrograms {
+
+    private BenchmarkPrograms() {}
+
+    static String load(String name) {
+        try (InputStream in = BenchmarkPrograms.class.getResourceAsStream("programs/" + name + ".plc")) {
+            if (in == null) {
+                throw new IllegalArgumentException("The benchmark program " + name + " does not exist.");
+            }
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            for (int read; (read = in.read(buffer)) != -1; ) {
+                out.write(buffer, 0, read);
+            }
+            return new String(out.toByteArray(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    static Ast.Source parse(String source) {
+        return new Parser(new Lexer(source).lex()).parseSource();
+    }
+
+}
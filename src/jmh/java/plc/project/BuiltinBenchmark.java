@@ -0,0 +1,99 @@
+package plc.project;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures calling a two-argument builtin bound by {@link BuiltinBinder},
+ * against a direct Java call and the same builtin written as a lambda over
+ * {@code List}. The bound handle is held in a field of its invoker, so it is
+ * not a constant to the JIT and the call is not inlined; the polymorphic
+ * case calls several bound builtins from one site, as the interpreter does.
+ */
+@State(org.openjdk.jmh.annotations.Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BuiltinBenchmark {
+
+    private final Environment.PlcObject one = Environment.create(BigInteger.ONE);
+    private final Environment.PlcObject two = Environment.create(BigInteger.valueOf(2));
+
+    private Environment.Function bound;
+    private Environment.Function list;
+    private Environment.Function[] polymorphic;
+    private int next;
+
+    @Setup
+    public void setup() {
+        Scope scope = new Scope(null);
+        BuiltinBinder.bind(Host.class, scope);
+        bound = scope.lookupFunction("add", 2);
+        list = new Environment.Function("add", 2, args -> Environment.create(
+                ((BigInteger) args.get(0).getValue()).add((BigInteger) args.get(1).getValue())));
+        polymorphic = new Environment.Function[] {
+                bound,
+                scope.lookupFunction("subtract", 2),
+                scope.lookupFunction("max", 2),
+                scope.lookupFunction("min", 2),
+        };
+    }
+
+    @Benchmark
+    public Environment.PlcObject direct() {
+        return Environment.create(Host.add((BigInteger) one.getValue(), (BigInteger) two.getValue()));
+    }
+
+    @Benchmark
+    public Environment.PlcObject bound() {
+        return bound.invoke2(one, two);
+    }
+
+    @Benchmark
+    public Environment.PlcObject boundPolymorphic() {
+        return polymorphic[next++ & 3].invoke2(one, two);
+    }
+
+    @Benchmark
+    public Environment.PlcObject listLambda() {
+        return list.invoke(Arrays.asList(one, two));
+    }
+
+    public static final class Host {
+
+        @Builtin
+        public static BigInteger add(BigInteger left, BigInteger right) {
+            return left.add(right);
+        }
+
+        @Builtin
+        public static BigInteger subtract(BigInteger left, BigInteger right) {
+            return left.subtract(right);
+        }
+
+        @Builtin
+        public static BigInteger max(BigInteger left, BigInteger right) {
+            return left.max(right);
+        }
+
+        @Builtin
+        public static BigInteger min(BigInteger left, BigInteger right) {
+            return left.min(right);
+        }
+
+    }
+
+}
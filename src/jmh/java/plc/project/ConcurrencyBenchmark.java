@@ -0,0 +1,145 @@
+package plc.project;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures running scripts concurrently: a {@code FOR} against a
+ * {@code PARALLEL FOR} computing {@code fib(15)} for each of 256 elements on
+ * pools of several sizes, and batches of jobs submitted to a
+ * {@link ScriptExecutor}, each waiting 1 ms in a host function before
+ * computing {@code fib(10)}. Speedups are bounded by the available
+ * processors.
+ */
+@State(org.openjdk.jmh.annotations.Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConcurrencyBenchmark {
+
+    private static final String FIB = String.join("\n",
+            "DEF fib(n) DO",
+            "    IF n < 2 DO",
+            "        RETURN n;",
+            "    END",
+            "    RETURN fib(n - 1) + fib(n - 2);",
+            "END");
+
+    private Program serial;
+
+    @Setup
+    public void setup() {
+        serial = new Program(BenchmarkPrograms.parse(loop("FOR")));
+    }
+
+    private static String loop(String keyword) {
+        return String.join("\n",
+                FIB,
+                "DEF main() DO",
+                "    " + keyword + " n IN range(0, 256) DO",
+                "        LET result = fib(15);",
+                "    END",
+                "END");
+    }
+
+    @State(org.openjdk.jmh.annotations.Scope.Benchmark)
+    public static class Loop {
+
+        @Param({"1", "4", "16"})
+        public int parallelism;
+
+        private ForkJoinPool pool;
+        private Program parallel;
+
+        @Setup
+        public void setup() {
+            pool = new ForkJoinPool(parallelism);
+            parallel = new Program(BenchmarkPrograms.parse(loop("PARALLEL FOR")));
+        }
+
+        @TearDown
+        public void tearDown() {
+            pool.shutdown();
+        }
+
+    }
+
+    @State(org.openjdk.jmh.annotations.Scope.Benchmark)
+    public static class Executor {
+
+        @Param({"1", "16", "256"})
+        public int concurrency;
+
+        private ScriptExecutor executor;
+        private Program program;
+        private Scope bindings;
+
+        @Setup
+        public void setup() {
+            executor = new ScriptExecutor(concurrency, Duration.ofSeconds(30));
+            program = new Program(BenchmarkPrograms.parse(String.join("\n",
+                    FIB,
+                    "DEF main() DO",
+                    "    wait();",
+                    "    RETURN fib(10);",
+                    "END")));
+            bindings = new Scope(null);
+            bindings.defineFunction(Environment.Function.of("wait", 0, args -> {
+                try {
+                    Thread.sleep(1);
+                } catch (InterruptedException e) {
+                    throw new RuntimeException(e);
+                }
+                return Environment.NIL;
+            }));
+        }
+
+        @TearDown
+        public void tearDown() {
+            executor.close();
+        }
+
+    }
+
+    @Benchmark
+    public Environment.PlcObject serialFor() {
+        return new Interpreter(new Scope(null), serial).visit(serial.getSource());
+    }
+
+    @Benchmark
+    public Environment.PlcObject parallelFor(Loop state) {
+        Interpreter interpreter = new Interpreter(new Scope(null), state.parallel);
+        interpreter.setForkJoinPool(state.pool);
+        return interpreter.visit(state.parallel.getSource());
+    }
+
+    /**
+     * Submits {@code concurrency} jobs and waits for all of them, so the
+     * time per operation is the time to drain a full batch.
+     */
+    @Benchmark
+    public Object executorBatch(Executor state) {
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[state.concurrency];
+        for (int i = 0; i < futures.length; i++) {
+            futures[i] = state.executor.submit(state.program, state.bindings);
+        }
+        return CompletableFuture.allOf(futures).join();
+    }
+
+}
@@ -0,0 +1,16 @@
+package plc.project;
+
+/**
+ * A way of running programs written in this language, so that
+ * {@link MacroBenchmark} can compare implementations on the same programs.
+ * Engines are created through a public no-argument constructor.
+ */
+public interface Engine {
+
+    /**
+     * Runs the program in the given source from scratch (lexing, parsing and
+     * executing it) and returns the value of its {@code main} method.
+     */
+    Object execute(String source);
+
+}
@@ -0,0 +1,51 @@
+package plc.project;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures executing an already parsed program, both with a fresh
+ * {@link Interpreter} per run (including builtin binding) and through an
+ * {@link InterpreterPool} that reuses one.
+ */
+@State(org.openjdk.jmh.annotations.Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InterpreterBenchmark {
+
+    @Param({"fib", "loop", "collections"})
+    public String program;
+
+    private Ast.Source source;
+    private InterpreterPool pool;
+
+    @Setup
+    public void setup() {
+        source = BenchmarkPrograms.parse(BenchmarkPrograms.load(program));
+        pool = new InterpreterPool(new Program(source), 1);
+    }
+
+    @Benchmark
+    public Object execute() {
+        return new Interpreter(new Scope(null)).visit(source).getValue();
+    }
+
+    @Benchmark
+    public Object executePooled() {
+        return pool.execute(new Scope(null)).getValue();
+    }
+
+}
@@ -0,0 +1,14 @@
+package plc.project;
+
+/**
+ * Runs programs with the tree-walking {@link Interpreter}.
+ */
+public final class InterpreterEngine implements Engine {
+
+    @Override
+    public Object execute(String source) {
+        Ast.Source ast = new Parser(new Lexer(source).lex()).parseSource();
+        return new Interpreter(new Scope(null)).visit(ast).getValue();
+    }
+
+}
@@ -0,0 +1,115 @@
+package plc.project;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the I/O builtins: 100k calls to {@code print} through a sink
+ * calling {@link PrintStream#println} for every line and through a buffered
+ * sink, and reading and copying an 8 MB file with {@code lines} and
+ * {@code writeLines} against a plain {@link BufferedReader} loop.
+ */
+@State(org.openjdk.jmh.annotations.Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IoBenchmark {
+
+    private final PrintStream stream = new PrintStream(OutputStream.nullOutputStream());
+
+    private Program print;
+    private Path input;
+    private Path output;
+    private Interpreter interpreter;
+    private Ast.Stmt count;
+    private Ast.Expr copy;
+
+    @Setup
+    public void setup() throws IOException {
+        print = new Program(BenchmarkPrograms.parse(String.join("\n",
+                "DEF main() DO",
+                "    FOR n IN range(0, 100000) DO",
+                "        print(n);",
+                "    END",
+                "END")));
+        input = Files.createTempFile("lines", ".txt");
+        output = Files.createTempFile("lines", ".out");
+        StringBuilder line = new StringBuilder();
+        for (int i = 0; i < 63; i++) {
+            line.append((char) ('a' + i % 26));
+        }
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < 128 * 1024; i++) {
+            lines.add(line.toString());
+        }
+        Files.write(input, lines);
+        Scope scope = new Scope(null);
+        scope.defineVariable("count", Environment.create(BigInteger.ZERO));
+        scope.defineVariable("input", Environment.create(input.toString()));
+        scope.defineVariable("output", Environment.create(output.toString()));
+        BuiltinBinder.bind(FileBuiltins.class, scope);
+        interpreter = new Interpreter(scope);
+        count = new Parser(new Lexer("FOR line IN lines(input) DO count = count + 1; END").lex()).parseStatement();
+        copy = new Parser(new Lexer("writeLines(output, lines(input))").lex()).parseExpression();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(input);
+        Files.deleteIfExists(output);
+    }
+
+    @Benchmark
+    public Environment.PlcObject printUnbuffered() {
+        return print.execute(new Scope(null), OutputSink.unbuffered(stream));
+    }
+
+    @Benchmark
+    public Environment.PlcObject printBuffered() {
+        return print.execute(new Scope(null), OutputSink.buffered(stream, 8192));
+    }
+
+    @Benchmark
+    public long readLinesJava() throws IOException {
+        long count = 0;
+        try (BufferedReader reader = Files.newBufferedReader(input, StandardCharsets.UTF_8)) {
+            while (reader.readLine() != null) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Benchmark
+    public Environment.PlcObject readLines() {
+        return interpreter.visit(count);
+    }
+
+    @Benchmark
+    public Environment.PlcObject writeLines() {
+        return interpreter.visit(copy);
+    }
+
+}
@@ -0,0 +1,84 @@
+package plc.project;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures name resolution: function lookups through nested scopes by
+ * {@code String} and by interned {@link Symbol}, and field reads on an object
+ * with a {@link Shape} against a variable lookup in a scope per object.
+ * Allocation per object is reported by the {@code create} benchmarks when run
+ * with {@code -prof gc}.
+ */
+@State(org.openjdk.jmh.annotations.Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LookupBenchmark {
+
+    private final Symbol symbol = Symbol.of("function");
+    private final Shape point = Shape.EMPTY.withField("x").withField("y").withField("z");
+
+    private Scope nested;
+    private Scope fields;
+    private Interpreter interpreter;
+    private Ast.Expr access;
+
+    @Setup
+    public void setup() {
+        Scope global = new Scope(null);
+        global.defineFunction("function", 1, args -> Environment.NIL);
+        nested = new Scope(new Scope(new Scope(global)));
+        fields = createScope();
+        Scope scope = new Scope(null);
+        scope.defineVariable("object", new Environment.PlcObject(point, null));
+        interpreter = new Interpreter(scope);
+        access = new Parser(new Lexer("object.y").lex()).parseExpression();
+    }
+
+    @Benchmark
+    public Environment.Function lookupString() {
+        return nested.lookupFunction("function", 1);
+    }
+
+    @Benchmark
+    public Environment.Function lookupSymbol() {
+        return nested.lookupFunction(symbol, 1);
+    }
+
+    @Benchmark
+    public Environment.PlcObject fieldShaped() {
+        return interpreter.visit(access);
+    }
+
+    @Benchmark
+    public Environment.Variable fieldScope() {
+        return fields.lookupVariable("y");
+    }
+
+    @Benchmark
+    public Environment.PlcObject createShaped() {
+        return new Environment.PlcObject(point, null);
+    }
+
+    @Benchmark
+    public Scope createScope() {
+        Scope scope = new Scope(null);
+        scope.defineVariable("x", Environment.NIL);
+        scope.defineVariable("y", Environment.NIL);
+        scope.defineVariable("z", Environment.NIL);
+        return scope;
+    }
+
+}
@@ -0,0 +1,149 @@
+package plc.project;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Runs the benchmark programs under {@code programs/} end to end through an
+ * {@link Engine}, reporting operations per second and bytes allocated per
+ * run. Each program's result is checked against its known value so that
+ * engines can only be compared when they agree.
+ *
+ * Usage: {@code MacroBenchmark [--engine <class>] [--warmup <n>] [--iterations <n>] [program...]}
+ */
+public final class MacroBenchmark {
+
+    /**
+     * The programs run by default, with the string value of their result.
+     */
+    static final Map<String, String> PROGRAMS = new LinkedHashMap<>();
+
+    static {
+        PROGRAMS.put("fib", "610");
+        PROGRAMS.put("sieve", "2262");
+        PROGRAMS.put("nbody", "-0.178755419");
+        PROGRAMS.put("strings", "51000");
+        PROGRAMS.put("objects", "14942500");
+    }
+
+    private MacroBenchmark() {}
+
+    public static void main(String[] args) throws ReflectiveOperationException {
+        Engine engine = new InterpreterEngine();
+        int warmup = 5;
+        int iterations = 10;
+        List<String> programs = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--engine":
+                    engine = (Engine) Class.forName(args[++i]).getConstructor().newInstance();
+                    break;
+                case "--warmup":
+                    warmup = Integer.parseInt(args[++i]);
+                    break;
+                case "--iterations":
+                    iterations = Integer.parseInt(args[++i]);
+                    break;
+                default:
+                    programs.add(args[i]);
+            }
+        }
+        if (programs.isEmpty()) {
+            programs.addAll(PROGRAMS.keySet());
+        }
+        System.out.printf(Locale.ROOT, "Engine: %s (%d warmup, %d measured runs)%n", engine.getClass().getName(), warmup, iterations);
+        System.out.printf(Locale.ROOT, "%-10s %12s %12s %16s  %s%n", "Program", "ops/s", "ms/op", "bytes/op", "result");
+        for (String program : programs) {
+            Measurement measurement = run(engine, program, BenchmarkPrograms.load(program), warmup, iterations);
+            System.out.printf(Locale.ROOT, "%-10s %12.2f %12.3f %16s  %s%n", program,
+                    measurement.getOpsPerSecond(),
+                    measurement.getNanosPerOp() / 1e6,
+                    measurement.getBytesPerOp() < 0 ? "n/a" : String.valueOf(measurement.getBytesPerOp()),
+                    measurement.getResult());
+        }
+    }
+
+    /**
+     * Runs the source {@code warmup} times and then measures {@code iterations}
+     * runs on the current thread, failing if any run produces a result other
+     * than the program's known one.
+     */
+    static Measurement run(Engine engine, String name, String source, int warmup, int iterations) {
+        String expected = PROGRAMS.get(name);
+        for (int i = 0; i < warmup; i++) {
+            check(name, expected, engine.execute(source));
+        }
+        long bytes = allocatedBytes();
+        long start = System.nanoTime();
+        Object result = null;
+        for (int i = 0; i < iterations; i++) {
+            result = engine.execute(source);
+        }
+        long nanos = System.nanoTime() - start;
+        long allocated = bytes < 0 ? -1 : allocatedBytes() - bytes;
+        check(name, expected, result);
+        return new Measurement(result, iterations, nanos, allocated < 0 ? -1 : allocated / iterations);
+    }
+
+    private static void check(String name, String expected, Object result) {
+        if (expected != null && !expected.equals(Objects.toString(result))) {
+            throw new IllegalStateException("The program " + name + " returned " + result + ", expected " + expected + ".");
+        }
+    }
+
+    /**
+     * Returns the bytes allocated so far by the current thread, or {@code -1}
+     * if the JVM does not support measuring it.
+     */
+    private static long allocatedBytes() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) bean;
+            if (threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled()) {
+                return threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+            }
+        }
+        return -1;
+    }
+
+    static final class Measurement {
+
+        private final Object result;
+        private final int iterations;
+        private final long nanos;
+        private final long bytesPerOp;
+
+        Measurement(Object result, int iterations, long nanos, long bytesPerOp) {
+            this.result = result;
+            this.iterations = iterations;
+            this.nanos = nanos;
+            this.bytesPerOp = bytesPerOp;
+        }
+
+        Object getResult() {
+            return result;
+        }
+
+        double getOpsPerSecond() {
+            return iterations * 1e9 / nanos;
+        }
+
+        double getNanosPerOp() {
+            return (double) nanos / iterations;
+        }
+
+        /**
+         * Returns the bytes allocated per run, or {@code -1} if unknown.
+         */
+        long getBytesPerOp() {
+            return bytesPerOp;
+        }
+
+    }
+
+}
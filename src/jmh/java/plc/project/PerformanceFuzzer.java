@@ -0,0 +1,324 @@
+package plc.project;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Searches for inputs whose lexing and parsing cost grows faster than their
+ * length. Each candidate splits a seed program into a prefix, a repeated
+ * unit (a span of the seed, possibly replaced by a snippet from
+ * {@link #SNIPPETS}) and a suffix, and "pumps" the unit: the input
+ * {@code prefix + unit * n + suffix} is lexed and parsed for growing
+ * {@code n}. Every run happens on a thread with a fixed stack size, so stack
+ * usage that grows with the input shows up as a {@link StackOverflowError}
+ * at some size.
+ *
+ * A candidate is a finding if the growth exponent of its time (see
+ * {@link ScalingHarness#exponent}) exceeds {@code 1 + tolerance}, if it
+ * overflows the stack at a larger size but not the smallest, or if a run
+ * does not finish. Findings are minimized by greedily removing parts of the
+ * prefix, unit and suffix while the problem persists, and saved with a
+ * report to the output directory. The search stops when the time budget is
+ * spent, and the harness exits with status {@code 1} if it found anything.
+ *
+ * Usage: {@code PerformanceFuzzer [--budget seconds] [--seed n] [--stack kilobytes]
+ * [--tolerance t] [--output directory]}
+ */
+public final class PerformanceFuzzer {
+
+    private static final String[] SNIPPETS = {
+            "(", ")", "\"", "'", "\\", ".", ",", ";", "=", "a.", "f(", "x + ", "- ", "1", "1.", "abc",
+            "LET ", "DEF ", "IF x DO ", "FOR i IN x DO ", "WHILE x DO ", "END ", "RETURN ", " ", "\n"
+    };
+
+    /**
+     * The number of times the unit is repeated at each size, relative to a
+     * base chosen so the smallest input pumps about 500 characters.
+     */
+    private static final int[] SIZES = {1, 2, 4, 8, 16};
+
+    private static final long TIMEOUT = 10_000;
+
+    private final Random random;
+    private final long stackSize;
+    private final double tolerance;
+    private final Path output;
+    private final List<String> seeds = new ArrayList<>();
+    private final Set<String> found = new HashSet<>();
+
+    PerformanceFuzzer(long seed, long stackSize, double tolerance, Path output) {
+        this.random = new Random(seed);
+        this.stackSize = stackSize;
+        this.tolerance = tolerance;
+        this.output = output;
+        for (String name : MacroBenchmark.PROGRAMS.keySet()) {
+            seeds.add(BenchmarkPrograms.load(name));
+        }
+        seeds.add(BenchmarkPrograms.load("loop"));
+        seeds.add(BenchmarkPrograms.load("collections"));
+        seeds.add(new ProgramGenerator(seed).methods(2).statements(5).generate());
+    }
+
+    public static void main(String[] args) throws IOException {
+        long budget = 60;
+        long seed = System.nanoTime();
+        long stack = 1024;
+        double tolerance = 0.5;
+        Path output = Paths.get("build", "fuzz");
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--budget":
+                    budget = Long.parseLong(args[++i]);
+                    break;
+                case "--seed":
+                    seed = Long.parseLong(args[++i]);
+                    break;
+                case "--stack":
+                    stack = Long.parseLong(args[++i]);
+                    break;
+                case "--tolerance":
+                    tolerance = Double.parseDouble(args[++i]);
+                    break;
+                case "--output":
+                    output = Paths.get(args[++i]);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option " + args[i] + ".");
+            }
+        }
+        Files.createDirectories(output);
+        System.out.printf(Locale.ROOT, "Fuzzing for %d s (seed %d, %d KB stack), saving findings to %s%n", budget, seed, stack, output);
+        PerformanceFuzzer fuzzer = new PerformanceFuzzer(seed, stack * 1024, tolerance, output);
+        long deadline = System.nanoTime() + budget * 1_000_000_000L;
+        int candidates = 0;
+        while (System.nanoTime() < deadline) {
+            fuzzer.fuzz(fuzzer.candidate());
+            candidates++;
+        }
+        System.out.printf(Locale.ROOT, "Tried %d candidates, %d finding(s).%n", candidates, fuzzer.found.size());
+        // Threads of inputs that never finished are daemons, but exit
+        // explicitly so they cannot keep the JVM alive either way.
+        System.exit(fuzzer.found.isEmpty() ? 0 : 1);
+    }
+
+    private Candidate candidate() {
+        String seed = seeds.get(random.nextInt(seeds.size()));
+        int start = random.nextInt(seed.length());
+        int end = Math.min(seed.length(), start + 1 + random.nextInt(16));
+        String unit = random.nextInt(3) == 0 ? seed.substring(start, end) : SNIPPETS[random.nextInt(SNIPPETS.length)];
+        if (random.nextInt(4) == 0) {
+            unit = unit + SNIPPETS[random.nextInt(SNIPPETS.length)];
+        }
+        return new Candidate(seed.substring(0, start), unit, seed.substring(random.nextInt(4) == 0 ? start : end));
+    }
+
+    private void fuzz(Candidate candidate) throws IOException {
+        Profile profile = profile(candidate);
+        if (profile.kind() == null) {
+            return;
+        }
+        candidate = minimize(candidate, profile.kind());
+        profile = profile(candidate);
+        String kind = profile.kind();
+        if (kind == null || !found.add(kind + ":" + candidate.unit)) {
+            return;
+        }
+        String name = "finding-" + found.size();
+        int size = profile.size();
+        Files.write(output.resolve(name + ".plc"), candidate.pump(size).getBytes(StandardCharsets.UTF_8));
+        Files.write(output.resolve(name + ".txt"), profile.report(candidate).getBytes(StandardCharsets.UTF_8));
+        System.out.printf(Locale.ROOT, "%s: %s, unit %s%n", name, kind, quote(candidate.unit));
+    }
+
+    /**
+     * Greedily removes chunks (halves, then quarters, and so on) of the
+     * suffix, prefix and unit while the candidate keeps the same problem.
+     */
+    private Candidate minimize(Candidate candidate, String kind) {
+        for (int part = 0; part < 3; part++) {
+            for (int chunks = 2; ; chunks *= 2) {
+                String text = candidate.part(part);
+                if (text.length() < chunks / 2 || chunks > 64) {
+                    break;
+                }
+                int length = Math.max(1, text.length() / chunks);
+                for (int start = 0; start < text.length(); ) {
+                    String reduced = text.substring(0, start) + text.substring(Math.min(text.length(), start + length));
+                    Candidate smaller = candidate.with(part, reduced);
+                    if ((part != 1 || !reduced.isEmpty()) && kind.equals(profile(smaller).kind())) {
+                        candidate = smaller;
+                        text = reduced;
+                    } else {
+                        start += length;
+                    }
+                }
+            }
+        }
+        return candidate;
+    }
+
+    private Profile profile(Candidate candidate) {
+        int base = Math.max(1, 500 / candidate.unit.length());
+        Profile profile = new Profile(base);
+        for (int size : SIZES) {
+            Run run = run(candidate.pump(base * size));
+            profile.runs.add(run);
+            if (run.overflow || run.timeout) {
+                break;
+            }
+        }
+        return profile;
+    }
+
+    /**
+     * Lexes and parses the input three times on a thread with the fixed stack
+     * size, recording the fastest time. Parse errors are expected outcomes.
+     */
+    private Run run(String input) {
+        Run run = new Run(input.length());
+        Thread thread = new Thread(null, () -> {
+            for (int i = 0; i < 3; i++) {
+                long start = System.nanoTime();
+                try {
+                    new Parser(new Lexer(input).lex()).parseSource();
+                } catch (RuntimeException ignored) {
+                } catch (StackOverflowError e) {
+                    run.overflow = true;
+                    return;
+                }
+                run.nanos = Math.min(run.nanos, System.nanoTime() - start);
+            }
+        }, "fuzz", stackSize);
+        thread.setDaemon(true);
+        thread.start();
+        try {
+            thread.join(TIMEOUT);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        run.timeout = thread.isAlive();
+        return run;
+    }
+
+    private static String quote(String text) {
+        return '"' + text.replace("\\", "\\\\").replace("\n", "\\n").replace("\"", "\\\"") + '"';
+    }
+
+    private static final class Candidate {
+
+        private final String prefix;
+        private final String unit;
+        private final String suffix;
+
+        private Candidate(String prefix, String unit, String suffix) {
+            this.prefix = prefix;
+            this.unit = unit;
+            this.suffix = suffix;
+        }
+
+        private String pump(int count) {
+            StringBuilder builder = new StringBuilder(prefix.length() + unit.length() * count + suffix.length());
+            builder.append(prefix);
+            for (int i = 0; i < count; i++) {
+                builder.append(unit);
+            }
+            return builder.append(suffix).toString();
+        }
+
+        private String part(int part) {
+            return part == 0 ? suffix : part == 1 ? unit : prefix;
+        }
+
+        private Candidate with(int part, String text) {
+            return part == 0 ? new Candidate(prefix, unit, text)
+                    : part == 1 ? new Candidate(prefix, text, suffix)
+                    : new Candidate(text, unit, suffix);
+        }
+
+    }
+
+    private static final class Run {
+
+        private final int length;
+        private long nanos = Long.MAX_VALUE;
+        private volatile boolean overflow;
+        private boolean timeout;
+
+        private Run(int length) {
+            this.length = length;
+        }
+
+    }
+
+    private final class Profile {
+
+        private final int base;
+        private final List<Run> runs = new ArrayList<>();
+
+        private Profile(int base) {
+            this.base = base;
+        }
+
+        /**
+         * Returns what is wrong with this input ({@code "timeout"},
+         * {@code "stack"} or {@code "time"}), or {@code null} if it scales.
+         */
+        private String kind() {
+            Run last = runs.get(runs.size() - 1);
+            if (last.timeout) {
+                return "timeout";
+            } else if (last.overflow) {
+                return runs.size() > 1 ? "stack" : null;
+            }
+            return exponent() > 1 + tolerance ? "time" : null;
+        }
+
+        private double exponent() {
+            double[] lengths = new double[runs.size()];
+            double[] times = new double[runs.size()];
+            for (int i = 0; i < runs.size(); i++) {
+                lengths[i] = runs.get(i).length;
+                times[i] = Math.max(1, runs.get(i).nanos);
+            }
+            return ScalingHarness.exponent(lengths, times);
+        }
+
+        /**
+         * Returns the repetition count of the input worth saving: the first
+         * size that failed, or the largest one measured.
+         */
+        private int size() {
+            return base * SIZES[runs.size() - 1];
+        }
+
+        private String report(Candidate candidate) {
+            StringBuilder report = new StringBuilder();
+            report.append("kind: ").append(kind()).append('\n');
+            report.append("prefix: ").append(quote(candidate.prefix)).append('\n');
+            report.append("unit: ").append(quote(candidate.unit)).append('\n');
+            report.append("suffix: ").append(quote(candidate.suffix)).append('\n');
+            report.append(String.format(Locale.ROOT, "stack: %d KB%n", stackSize / 1024));
+            for (int i = 0; i < runs.size(); i++) {
+                Run run = runs.get(i);
+                report.append(String.format(Locale.ROOT, "repetitions %d, length %d: %s%n", base * SIZES[i], run.length,
+                        run.timeout ? "timeout" : run.overflow ? "stack overflow" : String.format(Locale.ROOT, "%.3f ms", run.nanos / 1e6)));
+            }
+            if (!runs.get(runs.size() - 1).overflow && !runs.get(runs.size() - 1).timeout) {
+                report.append(String.format(Locale.ROOT, "growth exponent: %.2f%n", exponent()));
+            }
+            return report.toString();
+        }
+
+    }
+
+}
@@ -0,0 +1,247 @@
+package plc.project;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Generates random programs that {@link Parser#parseSource()} accepts and
+ * that run to completion in the {@link Interpreter}, with a controlled shape
+ * for scaling tests. The same seed and settings always produce the same
+ * source.
+ *
+ * Programs consist of a few integer globals, the configured number of methods
+ * (each with the configured number of top-level statements) and a
+ * {@code main} that calls every method once. Method bodies mix declarations, accumulator updates,
+ * {@code IF}s and {@code FOR} loops over small ranges. Arithmetic only uses
+ * integers (dividing by positive literals) and only reads globals, parameters
+ * and loop variables, so every expression is well-typed and values stay
+ * bounded no matter how long the program is. Decimal, string and boolean
+ * literals appear in declarations according to the literal weights.
+ */
+public final class ProgramGenerator {
+
+    private static final String LETTERS = "abcdefghijklmnopqrstuvwxyz";
+    private static final String CHARACTERS = LETTERS + "0123456789_";
+
+    /**
+     * Builtin and {@code main} names, which generated methods must not
+     * replace.
+     */
+    private static final List<String> RESERVED = Arrays.asList("main", "total", "print", "range", "lines", "writeLines",
+            "list", "map", "append", "get", "set", "length", "object", "sqrt", "round");
+
+    private final long seed;
+    private int methods = 10;
+    private int statements = 10;
+    private int expressionDepth = 3;
+    private int loopNesting = 2;
+    private int loopTrips = 3;
+    private int minIdentifierLength = 1;
+    private int maxIdentifierLength = 8;
+    private int integerWeight = 6;
+    private int decimalWeight = 2;
+    private int stringWeight = 1;
+    private int booleanWeight = 1;
+    private int maxInteger = 1000;
+
+    private Random random;
+    private Set<String> names;
+    private StringBuilder builder;
+
+    public ProgramGenerator(long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * Sets the number of methods, not counting {@code main}.
+     */
+    public ProgramGenerator methods(int methods) {
+        this.methods = methods;
+        return this;
+    }
+
+    /**
+     * Sets the number of top-level statements in each method body. Nested
+     * blocks add one to three statements each on top of this.
+     */
+    public ProgramGenerator statements(int statements) {
+        this.statements = statements;
+        return this;
+    }
+
+    /**
+     * Sets the maximum depth of binary operators in an expression.
+     */
+    public ProgramGenerator expressionDepth(int expressionDepth) {
+        this.expressionDepth = expressionDepth;
+        return this;
+    }
+
+    /**
+     * Sets the maximum nesting of {@code FOR} loops, and how many times each
+     * loop iterates.
+     */
+    public ProgramGenerator loopNesting(int loopNesting, int loopTrips) {
+        this.loopNesting = loopNesting;
+        this.loopTrips = loopTrips;
+        return this;
+    }
+
+    /**
+     * Sets the range of identifier lengths, which are chosen uniformly (a
+     * numeric suffix keeps short identifiers unique).
+     */
+    public ProgramGenerator identifierLength(int min, int max) {
+        this.minIdentifierLength = min;
+        this.maxIdentifierLength = max;
+        return this;
+    }
+
+    /**
+     * Sets the relative frequency of each literal type in declarations, and
+     * the largest integer literal.
+     */
+    public ProgramGenerator literals(int integers, int decimals, int strings, int booleans, int maxInteger) {
+        this.integerWeight = integers;
+        this.decimalWeight = decimals;
+        this.stringWeight = strings;
+        this.booleanWeight = booleans;
+        this.maxInteger = maxInteger;
+        return this;
+    }
+
+    public String generate() {
+        random = new Random(seed);
+        names = new HashSet<>(RESERVED);
+        builder = new StringBuilder();
+        List<String> globals = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            String name = identifier();
+            builder.append("LET ").append(name).append(" = ").append(integer()).append(";\n");
+            globals.add(name);
+        }
+        List<String> methodNames = new ArrayList<>();
+        for (int i = 0; i < methods; i++) {
+            String name = identifier();
+            methodNames.add(name);
+            builder.append("\nDEF ").append(name).append("(");
+            List<String> variables = new ArrayList<>(globals);
+            for (int j = 0; j < 2; j++) {
+                String parameter = identifier();
+                builder.append(j == 0 ? "" : ", ").append(parameter);
+                variables.add(parameter);
+            }
+            builder.append(") DO\n");
+            String accumulator = identifier();
+            line(1).append("LET ").append(accumulator).append(" = 0;\n");
+            block(1, statements, 0, accumulator, variables);
+            line(1).append("RETURN ").append(accumulator).append(";\n");
+            builder.append("END\n");
+        }
+        builder.append("\nDEF main() DO\n");
+        line(1).append("LET total = 0;\n");
+        for (String name : methodNames) {
+            line(1).append("total = total + ").append(name).append("(").append(integer()).append(", ").append(integer()).append(");\n");
+        }
+        line(1).append("RETURN total;\n");
+        builder.append("END\n");
+        return builder.toString();
+    }
+
+    /**
+     * Appends {@code count} statements, whose expressions read the given
+     * variables (globals, parameters and loop variables). Blocks nest at most
+     * two levels deeper than the loop nesting, which keeps the size of each
+     * method proportional to its statement count.
+     */
+    private void block(int indent, int count, int loops, String accumulator, List<String> variables) {
+        for (int i = 0; i < count; i++) {
+            int choice = random.nextInt(10);
+            if (choice < 4) {
+                declaration(indent, variables);
+            } else if (choice < 7 || indent > loopNesting + 2) {
+                line(indent).append(accumulator).append(" = ").append(accumulator).append(" + ").append(expression(expressionDepth, variables)).append(";\n");
+            } else if (choice < 8 || loops >= loopNesting) {
+                line(indent).append("IF ").append(expression(expressionDepth, variables)).append(" < ").append(expression(expressionDepth, variables)).append(" DO\n");
+                block(indent + 1, 1 + random.nextInt(3), loops, accumulator, variables);
+                if (random.nextBoolean()) {
+                    line(indent).append("ELSE\n");
+                    block(indent + 1, 1 + random.nextInt(3), loops, accumulator, variables);
+                }
+                line(indent).append("END\n");
+            } else {
+                String name = identifier();
+                line(indent).append("FOR ").append(name).append(" IN range(0, ").append(loopTrips).append(") DO\n");
+                List<String> body = new ArrayList<>(variables);
+                body.add(name);
+                block(indent + 1, 1 + random.nextInt(3), loops + 1, accumulator, body);
+                line(indent).append("END\n");
+            }
+        }
+    }
+
+    private void declaration(int indent, List<String> variables) {
+        String name = identifier();
+        line(indent).append("LET ").append(name).append(" = ");
+        int choice = random.nextInt(integerWeight + decimalWeight + stringWeight + booleanWeight);
+        if (choice < integerWeight) {
+            builder.append(expression(expressionDepth, variables)).append(";\n");
+        } else if ((choice -= integerWeight) < decimalWeight) {
+            builder.append(random.nextInt(maxInteger)).append('.').append(random.nextInt(100)).append(";\n");
+        } else if (choice - decimalWeight < stringWeight) {
+            builder.append('"').append(word(1 + random.nextInt(12), LETTERS)).append("\";\n");
+        } else {
+            builder.append(random.nextBoolean() ? "TRUE" : "FALSE").append(";\n");
+        }
+    }
+
+    private String expression(int depth, List<String> variables) {
+        if (depth == 0 || random.nextInt(4) == 0) {
+            return !variables.isEmpty() && random.nextBoolean()
+                    ? variables.get(random.nextInt(variables.size()))
+                    : integer();
+        }
+        String operator = "+-*/".substring(random.nextInt(4)).substring(0, 1);
+        String left = expression(depth - 1, variables);
+        String right = operator.equals("/") ? String.valueOf(1 + random.nextInt(maxInteger)) : expression(depth - 1, variables);
+        String expression = left + " " + operator + " " + right;
+        return random.nextInt(3) == 0 ? "(" + expression + ")" : expression;
+    }
+
+    private String integer() {
+        return String.valueOf(random.nextInt(maxInteger + 1));
+    }
+
+    /**
+     * Returns a new lowercase identifier, which can never be a keyword.
+     */
+    private String identifier() {
+        int length = minIdentifierLength + random.nextInt(maxIdentifierLength - minIdentifierLength + 1);
+        String name = LETTERS.charAt(random.nextInt(LETTERS.length())) + word(length - 1, CHARACTERS);
+        String unique = name;
+        for (int i = 0; !names.add(unique); i++) {
+            unique = name + i;
+        }
+        return unique;
+    }
+
+    private String word(int length, String alphabet) {
+        StringBuilder word = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            word.append(alphabet.charAt(random.nextInt(alphabet.length())));
+        }
+        return word.toString();
+    }
+
+    private StringBuilder line(int indent) {
+        for (int i = 0; i < indent; i++) {
+            builder.append("    ");
+        }
+        return builder;
+    }
+
+}
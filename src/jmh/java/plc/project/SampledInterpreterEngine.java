@@ -0,0 +1,28 @@
+package plc.project;
+
+import java.time.Duration;
+
+/**
+ * Runs programs like {@link InterpreterEngine} while a
+ * {@link SamplingProfiler} samples them, to measure the profiler's overhead
+ * with {@link MacroBenchmark}. The interval is read from the
+ * {@code plc.sampleInterval} system property in microseconds (1000, or
+ * 1 kHz, by default).
+ */
+public final class SampledInterpreterEngine implements Engine {
+
+    private final SamplingProfiler profiler = new SamplingProfiler(Duration.ofNanos(1000 * Long.getLong("plc.sampleInterval", 1000)));
+
+    @Override
+    public Object execute(String source) {
+        Ast.Source ast = new Parser(new Lexer(source).lex()).parseSource();
+        Interpreter interpreter = new Interpreter(new Scope(null));
+        profiler.attach(interpreter);
+        try {
+            return interpreter.visit(ast).getValue();
+        } finally {
+            profiler.detach(interpreter);
+        }
+    }
+
+}
@@ -0,0 +1,136 @@
+package plc.project;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Times {@link Lexer}, {@link Parser} and {@link Interpreter} on programs from
+ * {@link ProgramGenerator} of growing size, and flags any phase whose time
+ * grows faster than linearly in the size of the source.
+ *
+ * One dimension of the generator is scaled by each factor in {@code --sizes}:
+ * {@code methods} or {@code statements} (both grow the source linearly). The
+ * growth exponent of a phase is the least-squares slope of log(time) against
+ * log(source length) over the larger half of the sizes, where timings are
+ * least distorted by warmup; an exponent above {@code 1 + tolerance} is
+ * reported as superlinear and makes the harness exit with status {@code 1}.
+ *
+ * Usage: {@code ScalingHarness [--dimension methods|statements] [--sizes 1,2,4,...]
+ * [--depth n] [--nesting n] [--repetitions n] [--tolerance t] [--seed n]}
+ */
+public final class ScalingHarness {
+
+    private static final String[] PHASES = {"lex", "parse", "execute"};
+
+    private ScalingHarness() {}
+
+    public static void main(String[] args) {
+        String dimension = "methods";
+        int[] sizes = {1, 2, 4, 8, 16, 32};
+        int depth = 3;
+        int nesting = 2;
+        int repetitions = 5;
+        double tolerance = 0.25;
+        long seed = 42;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--dimension":
+                    dimension = args[++i];
+                    break;
+                case "--sizes":
+                    sizes = Arrays.stream(args[++i].split(",")).mapToInt(Integer::parseInt).toArray();
+                    break;
+                case "--depth":
+                    depth = Integer.parseInt(args[++i]);
+                    break;
+                case "--nesting":
+                    nesting = Integer.parseInt(args[++i]);
+                    break;
+                case "--repetitions":
+                    repetitions = Integer.parseInt(args[++i]);
+                    break;
+                case "--tolerance":
+                    tolerance = Double.parseDouble(args[++i]);
+                    break;
+                case "--seed":
+                    seed = Long.parseLong(args[++i]);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option " + args[i] + ".");
+            }
+        }
+        System.out.printf(Locale.ROOT, "Scaling %s (depth %d, nesting %d, %d repetitions)%n", dimension, depth, nesting, repetitions);
+        System.out.printf(Locale.ROOT, "%6s %10s %10s %14s %14s %14s%n", "size", "chars", "tokens", "lex ms", "parse ms", "execute ms");
+        double[] lengths = new double[sizes.length];
+        double[][] times = new double[PHASES.length][sizes.length];
+        for (int i = 0; i < sizes.length; i++) {
+            ProgramGenerator generator = new ProgramGenerator(seed).expressionDepth(depth).loopNesting(nesting, 3);
+            if (dimension.equals("methods")) {
+                generator.methods(10 * sizes[i]).statements(10);
+            } else if (dimension.equals("statements")) {
+                generator.methods(10).statements(10 * sizes[i]);
+            } else {
+                throw new IllegalArgumentException("Unknown dimension " + dimension + ".");
+            }
+            String source = generator.generate();
+            List<Token> tokens = new Lexer(source).lex();
+            Ast.Source ast = new Parser(tokens).parseSource();
+            lengths[i] = source.length();
+            times[0][i] = median(repetitions, () -> new Lexer(source).lex());
+            times[1][i] = median(repetitions, () -> new Parser(tokens).parseSource());
+            times[2][i] = median(repetitions, () -> new Interpreter(new Scope(null)).visit(ast));
+            System.out.printf(Locale.ROOT, "%6d %10d %10d %14.3f %14.3f %14.3f%n", sizes[i], source.length(), tokens.size(),
+                    times[0][i] / 1e6, times[1][i] / 1e6, times[2][i] / 1e6);
+        }
+        boolean superlinear = false;
+        for (int phase = 0; phase < PHASES.length; phase++) {
+            double exponent = exponent(lengths, times[phase]);
+            boolean flagged = exponent > 1 + tolerance;
+            superlinear |= flagged;
+            System.out.printf(Locale.ROOT, "%-8s growth exponent %.2f%s%n", PHASES[phase], exponent, flagged ? "  SUPERLINEAR" : "");
+        }
+        if (superlinear) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Returns the median time in nanoseconds of the given number of runs,
+     * after as many warmup runs.
+     */
+    private static double median(int repetitions, Runnable runnable) {
+        for (int i = 0; i < repetitions; i++) {
+            runnable.run();
+        }
+        List<Long> times = new ArrayList<>();
+        for (int i = 0; i < repetitions; i++) {
+            long start = System.nanoTime();
+            runnable.run();
+            times.add(System.nanoTime() - start);
+        }
+        times.sort(null);
+        return times.get(times.size() / 2);
+    }
+
+    /**
+     * Returns the least-squares slope of log(y) against log(x) over the
+     * larger half of the points (at least two).
+     */
+    static double exponent(double[] x, double[] y) {
+        int from = Math.min(x.length / 2, Math.max(0, x.length - 2));
+        int n = x.length - from;
+        double sumX = 0, sumY = 0, sumXY = 0, sumXX = 0;
+        for (int i = from; i < x.length; i++) {
+            double lx = Math.log(x[i]);
+            double ly = Math.log(y[i]);
+            sumX += lx;
+            sumY += ly;
+            sumXY += lx * ly;
+            sumXX += lx * lx;
+        }
+        return (n * sumXY - sumX * sumY) / (n * sumXX - sumX * sumX);
+    }
+
+}
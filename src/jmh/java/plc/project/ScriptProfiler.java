@@ -0,0 +1,57 @@
+package plc.project;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Runs a script with a {@link Profiler}, printing the top nodes by exclusive
+ * time and writing collapsed stacks for flame graph tools (for example
+ * {@code flamegraph.pl profile.collapsed > profile.svg}).
+ *
+ * Usage: {@code ScriptProfiler <script.plc> [--top n] [--output file]}
+ */
+public final class ScriptProfiler {
+
+    private ScriptProfiler() {}
+
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.err.println("Usage: ScriptProfiler <script.plc> [--top n] [--output file]");
+            System.exit(2);
+        }
+        Path script = Paths.get(args[0]);
+        int top = 20;
+        Path output = Paths.get(script.getFileName() + ".collapsed");
+        for (int i = 1; i < args.length; i++) {
+            switch (args[i]) {
+                case "--top":
+                    top = Integer.parseInt(args[++i]);
+                    break;
+                case "--output":
+                    output = Paths.get(args[++i]);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option " + args[i] + ".");
+            }
+        }
+        String source = new String(Files.readAllBytes(script), StandardCharsets.UTF_8);
+        Ast.Source ast = new Parser(new Lexer(source).lex()).parseSource();
+        Interpreter interpreter = new Interpreter(new Scope(null));
+        Profiler profiler = new Profiler(source);
+        interpreter.setProfiler(profiler);
+        long start = System.nanoTime();
+        Object result = interpreter.visit(ast).getValue();
+        System.out.printf("Result %s in %.3f ms%n%n", result, (System.nanoTime() - start) / 1e6);
+        System.out.print(profiler.report(top));
+        try (Writer writer = Files.newBufferedWriter(output, StandardCharsets.UTF_8)) {
+            profiler.writeCollapsed(writer);
+        }
+        System.out.println();
+        System.out.println("Collapsed stacks written to " + output.toAbsolutePath());
+    }
+
+}
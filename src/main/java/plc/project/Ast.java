@@ -10,6 +10,29 @@ import java.util.Optional;
  */
 public abstract class Ast {
 
+    private int offset = -1;
+
+    /**
+     * Returns the index in the source of the first token of this node (see
+     * {@link Token#getIndex()}), or {@code -1} if the parser did not record
+     * one. Offsets are set for methods and statements and are not part of
+     * equality.
+     */
+    public int getOffset() {
+        return offset;
+    }
+
+    /**
+     * Records the offset of this node, returning it for the parser's
+     * convenience.
+     */
+    <T extends Ast> T at(int offset) {
+        this.offset = offset;
+        @SuppressWarnings("unchecked")
+        T self = (T) this;
+        return self;
+    }
+
     public static final class Source extends Ast {
 
         private final List<Field> fields;
@@ -154,8 +177,8 @@ public abstract class Ast {
 
         public static final class Declaration extends Stmt {
 
-            private String name;
-            private Optional<Expr> value;
+            private final String name;
+            private final Optional<Expr> value;
 
             public Declaration(String name, Optional<Expr> value) {
                 this.name = name;
@@ -271,11 +294,17 @@ public abstract class Ast {
             private final String name;
             private final Expr value;
             private final List<Stmt> statements;
+            private final boolean parallel;
 
             public For(String name, Expr value, List<Stmt> statements) {
+                this(name, value, statements, false);
+            }
+
+            public For(String name, Expr value, List<Stmt> statements, boolean parallel) {
                 this.name = name;
                 this.value = value;
                 this.statements = statements;
+                this.parallel = parallel;
             }
 
             public String getName() {
@@ -290,12 +319,21 @@ public abstract class Ast {
                 return statements;
             }
 
+            /**
+             * Whether this is a {@code PARALLEL FOR}, whose iterations may run
+             * concurrently.
+             */
+            public boolean isParallel() {
+                return parallel;
+            }
+
             @Override
             public boolean equals(Object obj) {
                 return obj instanceof For &&
                         name.equals(((For) obj).name) &&
                         value.equals(((For) obj).value) &&
-                        statements.equals(((For) obj).statements);
+                        statements.equals(((For) obj).statements) &&
+                        parallel == ((For) obj).parallel;
             }
 
             @Override
@@ -304,6 +342,7 @@ public abstract class Ast {
                         "name='" + name + '\'' +
                         ", value=" + value +
                         ", statements=" + statements +
+                        ", parallel=" + parallel +
                         '}';
             }
 
@@ -0,0 +1,19 @@
+package plc.project;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a public static method as a builtin function for
+ * {@link BuiltinBinder}. The function is named after the method unless a
+ * name is given, and its arity is the method's parameter count.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface Builtin {
+
+    String value() default "";
+
+}
@@ -0,0 +1,252 @@
+package plc.project;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Registers the {@link Builtin} methods of a host class as functions. Each
+ * method is adapted with {@link MethodHandle}s: arguments are unwrapped from
+ * {@link Environment.PlcObject}s and checked against the parameter types, and
+ * results are wrapped with {@link Environment#create(Object)} ({@code void}
+ * methods return {@link Environment#NIL}). Parameters and results of type
+ * {@code PlcObject} are passed through unchanged, and {@code boolean} and
+ * {@code char} are boxed and unboxed as needed.
+ *
+ * Methods with up to four parameters are invoked through the fixed-arity
+ * entry points without an argument array. Bound functions are immutable and
+ * cached per class, so binding the same class into many scopes is cheap.
+ */
+public final class BuiltinBinder {
+
+    private static final MethodHandle REQUIRE;
+    private static final MethodHandle CREATE;
+
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            REQUIRE = lookup.findStatic(BuiltinBinder.class, "require", MethodType.methodType(Object.class, Class.class, Environment.PlcObject.class));
+            CREATE = lookup.findStatic(Environment.class, "create", MethodType.methodType(Environment.PlcObject.class, Object.class));
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private static final ClassValue<List<Environment.Function>> FUNCTIONS = new ClassValue<List<Environment.Function>>() {
+
+        @Override
+        protected List<Environment.Function> computeValue(Class<?> host) {
+            List<Method> methods = new ArrayList<>();
+            for (Method method : host.getMethods()) {
+                if (method.isAnnotationPresent(Builtin.class)) {
+                    methods.add(method);
+                }
+            }
+            methods.sort(Comparator.comparing(Method::getName).thenComparing(Method::getParameterCount));
+            List<Environment.Function> functions = new ArrayList<>();
+            for (Method method : methods) {
+                functions.add(bind(method));
+            }
+            return Collections.unmodifiableList(functions);
+        }
+
+    };
+
+    private BuiltinBinder() {}
+
+    /**
+     * Defines the builtins of the given class in the scope.
+     */
+    public static void bind(Class<?> host, Scope scope) {
+        for (Environment.Function function : getFunctions(host)) {
+            scope.defineFunction(function);
+        }
+    }
+
+    /**
+     * Returns the functions for the builtins of the given class.
+     */
+    public static List<Environment.Function> getFunctions(Class<?> host) {
+        return FUNCTIONS.get(host);
+    }
+
+    private static Environment.Function bind(Method method) {
+        if (!Modifier.isStatic(method.getModifiers())) {
+            throw new IllegalArgumentException("The builtin " + method + " must be static.");
+        }
+        Builtin builtin = method.getAnnotation(Builtin.class);
+        String name = builtin.value().isEmpty() ? method.getName() : builtin.value();
+        MethodHandle handle;
+        try {
+            handle = MethodHandles.lookup().unreflect(method);
+        } catch (IllegalAccessException e) {
+            throw new IllegalArgumentException("The builtin " + method + " must be accessible.", e);
+        }
+        Class<?>[] parameters = method.getParameterTypes();
+        MethodHandle[] filters = new MethodHandle[parameters.length];
+        for (int i = 0; i < parameters.length; i++) {
+            filters[i] = unwrap(parameters[i]);
+        }
+        handle = MethodHandles.filterArguments(handle, 0, filters);
+        handle = MethodHandles.filterReturnValue(handle, wrap(method.getReturnType()));
+        return Environment.Function.of(name, parameters.length, new HandleInvoker(handle));
+    }
+
+    /**
+     * Returns a handle converting a {@code PlcObject} argument to the type.
+     */
+    private static MethodHandle unwrap(Class<?> type) {
+        if (type == Environment.PlcObject.class) {
+            return MethodHandles.identity(Environment.PlcObject.class);
+        }
+        Class<?> boxed = box(type);
+        return MethodHandles.insertArguments(REQUIRE, 0, boxed)
+                .asType(MethodType.methodType(boxed, Environment.PlcObject.class))
+                .asType(MethodType.methodType(type, Environment.PlcObject.class));
+    }
+
+    /**
+     * Returns a handle converting a result of the type to a
+     * {@code PlcObject}.
+     */
+    private static MethodHandle wrap(Class<?> type) {
+        if (type == void.class) {
+            return MethodHandles.constant(Environment.PlcObject.class, Environment.NIL);
+        } else if (type == Environment.PlcObject.class) {
+            return MethodHandles.identity(Environment.PlcObject.class);
+        }
+        return CREATE.asType(MethodType.methodType(Environment.PlcObject.class, type));
+    }
+
+    private static Class<?> box(Class<?> type) {
+        if (type == boolean.class) {
+            return Boolean.class;
+        } else if (type == char.class) {
+            return Character.class;
+        } else if (type.isPrimitive()) {
+            throw new IllegalArgumentException("Unsupported builtin parameter type " + type.getName() + ".");
+        }
+        return type;
+    }
+
+    private static Object require(Class<?> type, Environment.PlcObject object) {
+        if (type.isInstance(object.getValue())) {
+            return object.getValue();
+        } else {
+            throw new RuntimeException("Expected type " + type.getName() + ", received " + object.getValue().getClass().getName() + ".");
+        }
+    }
+
+    /**
+     * Invokes a handle of type {@code (PlcObject...)PlcObject}, using
+     * {@code invokeExact} for the fixed-arity entry points.
+     */
+    private static final class HandleInvoker implements Environment.Invoker {
+
+        private final MethodHandle handle;
+        private final MethodHandle spreader;
+        private final int arity;
+
+        private HandleInvoker(MethodHandle handle) {
+            this.handle = handle;
+            this.arity = handle.type().parameterCount();
+            this.spreader = handle.asSpreader(Environment.PlcObject[].class, arity);
+        }
+
+        @Override
+        public Environment.PlcObject invoke(Environment.PlcObject[] arguments) {
+            if (arguments.length != arity) {
+                throw new RuntimeException("Expected " + arity + " arguments, received " + arguments.length + ".");
+            }
+            try {
+                return (Environment.PlcObject) spreader.invokeExact(arguments);
+            } catch (Throwable e) {
+                throw rethrow(e);
+            }
+        }
+
+        @Override
+        public Environment.PlcObject invoke0() {
+            if (arity != 0) {
+                return invoke(NO_ARGUMENTS);
+            }
+            try {
+                return (Environment.PlcObject) handle.invokeExact();
+            } catch (Throwable e) {
+                throw rethrow(e);
+            }
+        }
+
+        @Override
+        public Environment.PlcObject invoke1(Environment.PlcObject first) {
+            if (arity != 1) {
+                return invoke(new Environment.PlcObject[] {first});
+            }
+            try {
+                return (Environment.PlcObject) handle.invokeExact(first);
+            } catch (Throwable e) {
+                throw rethrow(e);
+            }
+        }
+
+        @Override
+        public Environment.PlcObject invoke2(Environment.PlcObject first, Environment.PlcObject second) {
+            if (arity != 2) {
+                return invoke(new Environment.PlcObject[] {first, second});
+            }
+            try {
+                return (Environment.PlcObject) handle.invokeExact(first, second);
+            } catch (Throwable e) {
+                throw rethrow(e);
+            }
+        }
+
+        @Override
+        public Environment.PlcObject invoke3(Environment.PlcObject first, Environment.PlcObject second, Environment.PlcObject third) {
+            if (arity != 3) {
+                return invoke(new Environment.PlcObject[] {first, second, third});
+            }
+            try {
+                return (Environment.PlcObject) handle.invokeExact(first, second, third);
+            } catch (Throwable e) {
+                throw rethrow(e);
+            }
+        }
+
+        @Override
+        public Environment.PlcObject invoke4(Environment.PlcObject first, Environment.PlcObject second, Environment.PlcObject third, Environment.PlcObject fourth) {
+            if (arity != 4) {
+                return invoke(new Environment.PlcObject[] {first, second, third, fourth});
+            }
+            try {
+                return (Environment.PlcObject) handle.invokeExact(first, second, third, fourth);
+            } catch (Throwable e) {
+                throw rethrow(e);
+            }
+        }
+
+        private static RuntimeException rethrow(Throwable e) {
+            if (e instanceof RuntimeException) {
+                return (RuntimeException) e;
+            } else if (e instanceof Error) {
+                throw (Error) e;
+            }
+            return new RuntimeException(e);
+        }
+
+        @Override
+        public String toString() {
+            return "HandleInvoker{" +
+                    "handle=" + handle +
+                    '}';
+        }
+
+    }
+
+}
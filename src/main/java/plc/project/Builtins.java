@@ -0,0 +1,145 @@
+package plc.project;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.MathContext;
+import java.math.RoundingMode;
+
+/**
+ * The builtin functions every interpreter defines, other than {@code print}
+ * (which writes to the interpreter's {@link OutputSink}). These are bound
+ * with {@link BuiltinBinder}; file access is opt-in, see {@link FileBuiltins}.
+ */
+public final class Builtins {
+
+    private Builtins() {}
+
+    @Builtin
+    public static Range range(BigInteger start, BigInteger end) {
+        return new Range(start, end, BigInteger.ONE);
+    }
+
+    @Builtin
+    public static Range range(BigInteger start, BigInteger end, BigInteger step) {
+        return new Range(start, end, step);
+    }
+
+    @Builtin
+    public static PlcList list() {
+        return new PlcList();
+    }
+
+    /**
+     * Returns a list of the elements of the iterable, such as a range.
+     */
+    @Builtin
+    public static PlcList list(Iterable<?> iterable) {
+        PlcList list = new PlcList();
+        for (Object element : iterable) {
+            list.add((Environment.PlcObject) element);
+        }
+        return list;
+    }
+
+    @Builtin
+    public static PlcMap map() {
+        return new PlcMap();
+    }
+
+    @Builtin
+    public static void append(PlcList list, Environment.PlcObject value) {
+        list.add(value);
+    }
+
+    /**
+     * Returns the element of a list at an index, or the value of a map for a
+     * key ({@code NIL} if absent).
+     */
+    @Builtin
+    public static Environment.PlcObject get(Environment.PlcObject collection, Environment.PlcObject key) {
+        if (collection.getValue() instanceof PlcList) {
+            return ((PlcList) collection.getValue()).get(index(key));
+        } else if (collection.getValue() instanceof PlcMap) {
+            return ((PlcMap) collection.getValue()).get(key);
+        }
+        throw unsupported(collection);
+    }
+
+    @Builtin
+    public static void set(Environment.PlcObject collection, Environment.PlcObject key, Environment.PlcObject value) {
+        if (collection.getValue() instanceof PlcList) {
+            ((PlcList) collection.getValue()).set(index(key), value);
+        } else if (collection.getValue() instanceof PlcMap) {
+            ((PlcMap) collection.getValue()).put(key, value);
+        } else {
+            throw unsupported(collection);
+        }
+    }
+
+    @Builtin
+    public static BigInteger length(Environment.PlcObject collection) {
+        if (collection.getValue() instanceof PlcList) {
+            return BigInteger.valueOf(((PlcList) collection.getValue()).size());
+        } else if (collection.getValue() instanceof PlcMap) {
+            return BigInteger.valueOf(((PlcMap) collection.getValue()).size());
+        } else if (collection.getValue() instanceof String) {
+            return BigInteger.valueOf(((String) collection.getValue()).length());
+        }
+        throw unsupported(collection);
+    }
+
+    /**
+     * Returns a new object with a field for each (string) key of the map,
+     * initialized to that key's value.
+     */
+    @Builtin
+    public static Environment.PlcObject object(PlcMap fields) {
+        Environment.PlcObject object = Environment.create(new Object());
+        for (Environment.PlcObject key : fields) {
+            if (!(key.getValue() instanceof String)) {
+                throw new RuntimeException("Expected type java.lang.String, received " + key.getValue().getClass().getName() + ".");
+            }
+            object.defineField((String) key.getValue(), fields.get(key));
+        }
+        return object;
+    }
+
+    /**
+     * Returns the square root of a decimal, rounded to 16 significant digits.
+     */
+    @Builtin
+    public static BigDecimal sqrt(BigDecimal value) {
+        if (value.signum() < 0) {
+            throw new RuntimeException("Cannot take the square root of " + value + ".");
+        }
+        return value.sqrt(MathContext.DECIMAL64);
+    }
+
+    /**
+     * Rounds a decimal to the given number of decimal places, which keeps the
+     * scale of repeated multiplications from growing without bound.
+     */
+    @Builtin
+    public static BigDecimal round(BigDecimal value, BigInteger places) {
+        if (places.bitLength() >= 32) {
+            throw new RuntimeException("The number of decimal places " + places + " is out of range.");
+        }
+        return value.setScale(places.intValue(), RoundingMode.HALF_EVEN);
+    }
+
+    private static int index(Environment.PlcObject index) {
+        if (!(index.getValue() instanceof BigInteger)) {
+            throw new RuntimeException("Expected type java.math.BigInteger, received " + index.getValue().getClass().getName() + ".");
+        }
+        BigInteger value = (BigInteger) index.getValue();
+        if (value.bitLength() >= 32) {
+            throw new RuntimeException("The index " + value + " is out of bounds.");
+        }
+        return value.intValue();
+    }
+
+    private static RuntimeException unsupported(Environment.PlcObject collection) {
+        return new RuntimeException("Expected a list or map, received " + collection.getValue().getClass().getName() + ".");
+    }
+
+}
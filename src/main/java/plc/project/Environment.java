@@ -1,6 +1,6 @@
 package plc.project;
 
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 public class Environment {
@@ -15,43 +15,127 @@ public class Environment {
     });
 
     public static PlcObject create(Object value) {
-        return new PlcObject(new Scope(null), value);
+        return new PlcObject(Shape.EMPTY, value);
     }
 
+    /**
+     * Objects store their fields as {@link Variable} cells in an array indexed
+     * by their {@link Shape}'s slots, while methods live in the shape itself.
+     * Keeping cells (rather than bare values) lets {@link #getField(String)}
+     * hand out a live variable and lets objects built from a {@link Scope}
+     * share that scope's variables, at the cost of one cell per field. Such
+     * an object's layout is fixed when it is created: variables defined in
+     * the scope later are not fields of the object.
+     */
     public static final class PlcObject {
 
-        private final Scope scope;
-        private final Object value;
+        private static final Variable[] NO_FIELDS = new Variable[0];
 
+        private Shape shape;
+        private Variable[] fields;
+        private Object value;
+
+        /**
+         * Creates an object with the fields and functions visible from the
+         * given scope. Fields share the scope's variables, but definitions
+         * added to the scope afterwards are not visible to the object.
+         */
         public PlcObject(Scope scope, Object value) {
-            this.scope = scope;
+            this.shape = Shape.of(scope);
+            this.fields = new Variable[shape.getFieldCount()];
+            for (int i = 0; i < fields.length; i++) {
+                fields[i] = scope.lookupVariable(shape.getFieldName(i));
+            }
             this.value = value;
         }
 
+        /**
+         * Creates an object with the given shape and all fields set to
+         * {@link #NIL}.
+         */
+        public PlcObject(Shape shape, Object value) {
+            this.shape = shape;
+            this.fields = shape.getFieldCount() == 0 ? NO_FIELDS : new Variable[shape.getFieldCount()];
+            for (int i = 0; i < fields.length; i++) {
+                fields[i] = new Variable(shape.getFieldName(i), NIL);
+            }
+            this.value = value;
+        }
+
+        public Shape getShape() {
+            return shape;
+        }
+
         public Variable getField(String name) {
-            return scope.lookupVariable(name);
+            int slot = shape.getSlot(name);
+            if (slot < 0) {
+                throw new RuntimeException("The field " + name + " is not defined in this object.");
+            }
+            return fields[slot];
+        }
+
+        /**
+         * Returns the field at the given slot of this object's shape.
+         */
+        public Variable getField(int slot) {
+            return fields[slot];
         }
 
         public void setField(String name, PlcObject value) {
-            scope.lookupVariable(name).setValue(value);
+            getField(name).setValue(value);
+        }
+
+        /**
+         * Adds a new field to this object, transitioning it to a new shape.
+         */
+        public void defineField(String name, PlcObject value) {
+            if (this == NIL) {
+                throw new RuntimeException("Cannot define the field " + name + " on nil.");
+            }
+            shape = shape.withField(name);
+            fields = Arrays.copyOf(fields, fields.length + 1);
+            fields[fields.length - 1] = new Variable(name, value);
         }
 
         public PlcObject callMethod(String name, List<PlcObject> arguments) {
-            Function function = scope.lookupFunction(name, arguments.size() + 1);
-            arguments = new ArrayList<>(arguments);
-            arguments.add(0, this);
-            return function.invoke(arguments);
+            Function function = shape.lookupMethod(Symbol.of(name), arguments.size() + 1);
+            if (function == null) {
+                throw new RuntimeException("The method " + name + "/" + (arguments.size() + 1) + " is not defined in this object.");
+            }
+            PlcObject[] array = new PlcObject[arguments.size() + 1];
+            array[0] = this;
+            for (int i = 0; i < arguments.size(); i++) {
+                array[i + 1] = arguments.get(i);
+            }
+            return function.invoke(array);
         }
 
+        /**
+         * Returns the value of this object, flattening a {@link Rope} built by
+         * string concatenation into a {@link String} on first use.
+         */
         public Object getValue() {
+            Object value = this.value;
+            if (value instanceof Rope) {
+                value = value.toString();
+                this.value = value;
+            }
+            return value;
+        }
+
+        /**
+         * Returns the value without flattening it, for the interpreter's
+         * string concatenation.
+         */
+        Object getRawValue() {
             return value;
         }
 
         @Override
         public String toString() {
             return "Object{" +
-                    "scope=" + scope +
-                    ", value=" + value +
+                    "shape=" + shape +
+                    ", value=" + getValue() +
                     '}';
         }
 
@@ -89,16 +173,70 @@ public class Environment {
 
     }
 
+    /**
+     * The calling convention for functions: arguments are passed as an array
+     * (receiver first for methods), and the fixed-arity entry points let
+     * implementations that care about allocation skip the array entirely for
+     * up to four arguments. The defaults simply delegate to the array form.
+     */
+    @FunctionalInterface
+    public interface Invoker {
+
+        PlcObject[] NO_ARGUMENTS = new PlcObject[0];
+
+        PlcObject invoke(PlcObject[] arguments);
+
+        default PlcObject invoke(List<PlcObject> arguments) {
+            return invoke(arguments.toArray(NO_ARGUMENTS));
+        }
+
+        default PlcObject invoke0() {
+            return invoke(NO_ARGUMENTS);
+        }
+
+        default PlcObject invoke1(PlcObject first) {
+            return invoke(new PlcObject[] {first});
+        }
+
+        default PlcObject invoke2(PlcObject first, PlcObject second) {
+            return invoke(new PlcObject[] {first, second});
+        }
+
+        default PlcObject invoke3(PlcObject first, PlcObject second, PlcObject third) {
+            return invoke(new PlcObject[] {first, second, third});
+        }
+
+        default PlcObject invoke4(PlcObject first, PlcObject second, PlcObject third, PlcObject fourth) {
+            return invoke(new PlcObject[] {first, second, third, fourth});
+        }
+
+    }
+
     public static final class Function {
 
         private final String name;
         private final int arity;
-        private final java.util.function.Function<List<PlcObject>, PlcObject> function;
+        private final Invoker invoker;
 
+        /**
+         * Creates a function from a list-based implementation, which is adapted
+         * to the array calling convention.
+         */
         public Function(String name, int arity, java.util.function.Function<List<PlcObject>, PlcObject> function) {
+            this(name, arity, new ListInvoker(function));
+        }
+
+        private Function(String name, int arity, Invoker invoker) {
             this.name = name;
             this.arity = arity;
-            this.function = function;
+            this.invoker = invoker;
+        }
+
+        /**
+         * Creates a function using the array calling convention.
+         */
+        public static Function of(String name, int arity, Invoker invoker) {
+            return new Function(name, arity, invoker);
         }
 
         public String getName() {
@@ -110,7 +248,31 @@ public class Environment {
         }
 
         public PlcObject invoke(List<PlcObject> arguments) {
-            return function.apply(arguments);
+            return invoker.invoke(arguments);
+        }
+
+        public PlcObject invoke(PlcObject[] arguments) {
+            return invoker.invoke(arguments);
+        }
+
+        public PlcObject invoke0() {
+            return invoker.invoke0();
+        }
+
+        public PlcObject invoke1(PlcObject first) {
+            return invoker.invoke1(first);
+        }
+
+        public PlcObject invoke2(PlcObject first, PlcObject second) {
+            return invoker.invoke2(first, second);
+        }
+
+        public PlcObject invoke3(PlcObject first, PlcObject second, PlcObject third) {
+            return invoker.invoke3(first, second, third);
+        }
+
+        public PlcObject invoke4(PlcObject first, PlcObject second, PlcObject third, PlcObject fourth) {
+            return invoker.invoke4(first, second, third, fourth);
         }
 
         @Override
@@ -118,10 +280,38 @@ public class Environment {
             return "Function{" +
                     "name='" + name + '\'' +
                     ", arity=" + arity +
-                    ", function=" + function +
+                    ", function=" + invoker +
                     '}';
         }
 
     }
 
+    /**
+     * Adapts a list-based function to the array calling convention.
+     */
+    private static final class ListInvoker implements Invoker {
+
+        private final java.util.function.Function<List<PlcObject>, PlcObject> function;
+
+        private ListInvoker(java.util.function.Function<List<PlcObject>, PlcObject> function) {
+            this.function = function;
+        }
+
+        @Override
+        public PlcObject invoke(PlcObject[] arguments) {
+            return function.apply(Arrays.asList(arguments));
+        }
+
+        @Override
+        public PlcObject invoke(List<PlcObject> arguments) {
+            return function.apply(arguments);
+        }
+
+        @Override
+        public String toString() {
+            return function.toString();
+        }
+
+    }
+
 }
@@ -0,0 +1,223 @@
+package plc.project;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Threshold;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * The Java Flight Recorder events emitted by {@link Lexer}, {@link Parser}
+ * and {@link Interpreter}, grouped under the "PLC Interpreter" category.
+ *
+ * Events are timed with {@link Event#begin()} and {@link Event#end()} and
+ * their fields are only computed once {@link Event#shouldCommit()} returns
+ * {@code true}, so while no recording enables them (the default) each one
+ * costs little more than an allocation. Method invocations are frequent, so
+ * their events are not even allocated unless enabled, and by default only
+ * those taking at least the {@link Threshold} are recorded; recordings may
+ * lower it with the {@code plc.MethodInvocation#threshold} setting.
+ */
+final class Events {
+
+    private Events() {}
+
+    @Name("plc.Lex")
+    @Label("Lex")
+    @Category("PLC Interpreter")
+    @Description("Lexing of a source into tokens")
+    static final class Lex extends Event {
+
+        @Label("Bytes")
+        @DataAmount
+        @Description("The length of the source in UTF-8")
+        long bytes;
+
+        @Label("Tokens")
+        int tokens;
+
+    }
+
+    @Name("plc.Parse")
+    @Label("Parse")
+    @Category("PLC Interpreter")
+    @Description("Parsing of tokens into a source AST")
+    static final class Parse extends Event {
+
+        @Label("Tokens")
+        int tokens;
+
+        @Label("Nodes")
+        @Description("The number of nodes in the AST, including the source")
+        int nodes;
+
+    }
+
+    @Name("plc.MethodInvocation")
+    @Label("Method Invocation")
+    @Category("PLC Interpreter")
+    @Description("Execution of the body of a method")
+    @Threshold("1 ms")
+    static final class MethodInvocation extends Event {
+
+        private static final EventType TYPE = EventType.getEventType(MethodInvocation.class);
+
+        @Label("Name")
+        String name;
+
+        @Label("Arity")
+        int arity;
+
+        /**
+         * Returns a begun event, or {@code null} if no recording enables
+         * method invocations, so the interpreter does not allocate an event
+         * for every call (which escape analysis cannot remove there).
+         */
+        static MethodInvocation start() {
+            if (!TYPE.isEnabled()) {
+                return null;
+            }
+            MethodInvocation event = new MethodInvocation();
+            event.begin();
+            return event;
+        }
+
+        void end(Ast.Method method) {
+            end();
+            if (shouldCommit()) {
+                name = method.getName();
+                arity = method.getParameters().size();
+                commit();
+            }
+        }
+
+    }
+
+    @Name("plc.Script")
+    @Label("Script")
+    @Category("PLC Interpreter")
+    @Description("Execution of a source, from its fields to the return of main")
+    static final class Script extends Event {
+
+        @Label("Methods")
+        int methods;
+
+        @Label("Succeeded")
+        boolean succeeded;
+
+        @Label("Error")
+        @Description("The exception the script failed with, if any")
+        String error;
+
+    }
+
+    /**
+     * Returns the number of nodes in the given tree.
+     */
+    static int count(Ast ast) {
+        return NodeCounter.INSTANCE.visit(ast);
+    }
+
+    /**
+     * Counts a node and, recursively, all of its children.
+     */
+    private static final class NodeCounter implements Ast.Visitor<Integer> {
+
+        private static final NodeCounter INSTANCE = new NodeCounter();
+
+        @Override
+        public Integer visit(Ast.Source ast) {
+            return 1 + count(ast.getFields()) + count(ast.getMethods());
+        }
+
+        @Override
+        public Integer visit(Ast.Field ast) {
+            return 1 + count(ast.getValue());
+        }
+
+        @Override
+        public Integer visit(Ast.Method ast) {
+            return 1 + count(ast.getStatements());
+        }
+
+        @Override
+        public Integer visit(Ast.Stmt.Expression ast) {
+            return 1 + visit(ast.getExpression());
+        }
+
+        @Override
+        public Integer visit(Ast.Stmt.Declaration ast) {
+            return 1 + count(ast.getValue());
+        }
+
+        @Override
+        public Integer visit(Ast.Stmt.Assignment ast) {
+            return 1 + visit(ast.getReceiver()) + visit(ast.getValue());
+        }
+
+        @Override
+        public Integer visit(Ast.Stmt.If ast) {
+            return 1 + visit(ast.getCondition()) + count(ast.getThenStatements()) + count(ast.getElseStatements());
+        }
+
+        @Override
+        public Integer visit(Ast.Stmt.For ast) {
+            return 1 + visit(ast.getValue()) + count(ast.getStatements());
+        }
+
+        @Override
+        public Integer visit(Ast.Stmt.While ast) {
+            return 1 + visit(ast.getCondition()) + count(ast.getStatements());
+        }
+
+        @Override
+        public Integer visit(Ast.Stmt.Return ast) {
+            return 1 + visit(ast.getValue());
+        }
+
+        @Override
+        public Integer visit(Ast.Expr.Literal ast) {
+            return 1;
+        }
+
+        @Override
+        public Integer visit(Ast.Expr.Group ast) {
+            return 1 + visit(ast.getExpression());
+        }
+
+        @Override
+        public Integer visit(Ast.Expr.Binary ast) {
+            return 1 + visit(ast.getLeft()) + visit(ast.getRight());
+        }
+
+        @Override
+        public Integer visit(Ast.Expr.Access ast) {
+            return 1 + count(ast.getReceiver());
+        }
+
+        @Override
+        public Integer visit(Ast.Expr.Function ast) {
+            return 1 + count(ast.getReceiver()) + count(ast.getArguments());
+        }
+
+        private int count(Optional<? extends Ast> node) {
+            return node.isPresent() ? visit(node.get()) : 0;
+        }
+
+        private int count(List<? extends Ast> nodes) {
+            int count = 0;
+            for (Ast node : nodes) {
+                count += visit(node);
+            }
+            return count;
+        }
+
+    }
+
+}
@@ -0,0 +1,57 @@
+package plc.project;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Iterator;
+
+/**
+ * Builtin functions that read and write files. Unlike {@link Builtins},
+ * these are not defined by every interpreter, since they give scripts access
+ * to the file system; a host that trusts its scripts binds them explicitly
+ * with {@link BuiltinBinder#bind(Class, Scope)}.
+ */
+public final class FileBuiltins {
+
+    private FileBuiltins() {}
+
+    @Builtin
+    public static Lines lines(String path) {
+        return new Lines(Paths.get(path));
+    }
+
+    /**
+     * Writes the value of each element on its own line, replacing the file.
+     * An iterator backed by a resource, such as that of {@link Lines}, is
+     * closed even if writing fails.
+     */
+    @Builtin
+    public static void writeLines(String path, Iterable<?> iterable) {
+        Iterator<?> iterator = iterable.iterator();
+        try (BufferedWriter writer = Files.newBufferedWriter(Paths.get(path), StandardCharsets.UTF_8)) {
+            while (iterator.hasNext()) {
+                writer.write(String.valueOf(((Environment.PlcObject) iterator.next()).getValue()));
+                writer.newLine();
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Unable to write the file " + path + ".", e);
+        } finally {
+            if (iterator instanceof AutoCloseable) {
+                close((AutoCloseable) iterator);
+            }
+        }
+    }
+
+    private static void close(AutoCloseable closeable) {
+        try {
+            closeable.close();
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+}
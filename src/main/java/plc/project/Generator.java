@@ -0,0 +1,65 @@
+package plc.project;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.Supplier;
+
+/**
+ * A lazy, single-use iterable over the elements produced by a host supplier,
+ * which returns {@code null} once it is exhausted. Wrapped with
+ * {@link Environment#create(Object)}, a generator can be iterated by a
+ * {@code FOR} loop without materializing its elements.
+ */
+public final class Generator implements Iterable<Environment.PlcObject> {
+
+    private final Supplier<Environment.PlcObject> supplier;
+    private boolean iterated = false;
+
+    private Generator(Supplier<Environment.PlcObject> supplier) {
+        this.supplier = supplier;
+    }
+
+    public static Generator of(Supplier<Environment.PlcObject> supplier) {
+        return new Generator(supplier);
+    }
+
+    /**
+     * Returns the iterator over this generator's elements, which can only be
+     * obtained once.
+     */
+    @Override
+    public synchronized Iterator<Environment.PlcObject> iterator() {
+        if (iterated) {
+            throw new RuntimeException("The generator has already been iterated.");
+        }
+        iterated = true;
+        return new Iterator<Environment.PlcObject>() {
+
+            private Environment.PlcObject next = supplier.get();
+
+            @Override
+            public boolean hasNext() {
+                return next != null;
+            }
+
+            @Override
+            public Environment.PlcObject next() {
+                if (next == null) {
+                    throw new NoSuchElementException();
+                }
+                Environment.PlcObject current = next;
+                next = supplier.get();
+                return current;
+            }
+
+        };
+    }
+
+    @Override
+    public String toString() {
+        return "Generator{" +
+                "supplier=" + supplier +
+                '}';
+    }
+
+}
@@ -0,0 +1,170 @@
+package plc.project;
+
+/**
+ * A polymorphic inline cache for a single call or access site. Targets are
+ * keyed by identity (the nearest {@link Scope} defining functions for a
+ * call, or the receiver's {@link Shape} for a method call or field access) and the cache starts out monomorphic, grows up to
+ * {@link #LIMIT} entries, and then becomes megamorphic, after which every
+ * lookup takes the slow path.
+ *
+ * Each entry also records the version of its key at the time it was filled
+ * (see {@link Scope#getVersion()}; shapes are immutable and use {@code 0}),
+ * and is only used while the key still has that version.
+ *
+ * Hits and misses are counted in {@link Counters} shared by the caches of
+ * one kind, so the totals can be read without visiting every site.
+ *
+ * Caches are not thread-safe and belong to a single {@link Interpreter}.
+ */
+public final class InlineCache<T> {
+
+    public static final int LIMIT = 4;
+
+    private final Object[] keys = new Object[LIMIT];
+    private final long[] versions = new long[LIMIT];
+    private final Object[] targets = new Object[LIMIT];
+    private int size = 0;
+    private boolean megamorphic = false;
+
+    private final Counters counters;
+
+    public InlineCache(Counters counters) {
+        this.counters = counters;
+    }
+
+    /**
+     * Returns the cached target for the given key and version, or
+     * {@code null} if the caller needs to perform the full lookup and
+     * {@link #update} the cache.
+     */
+    @SuppressWarnings("unchecked")
+    public T lookup(Object key, long version) {
+        for (int i = 0; i < size; i++) {
+            if (keys[i] == key && versions[i] == version) {
+                counters.hits++;
+                return (T) targets[i];
+            }
+        }
+        if (megamorphic) {
+            counters.megamorphicMisses++;
+        } else {
+            counters.misses++;
+        }
+        return null;
+    }
+
+    /**
+     * Records the target resolved for the given key and version after a
+     * failed lookup, replacing a stale entry for the same key if there is one.
+     */
+    public void update(Object key, long version, T target) {
+        for (int i = 0; i < size; i++) {
+            if (keys[i] == key) {
+                versions[i] = version;
+                targets[i] = target;
+                return;
+            }
+        }
+        if (size < LIMIT) {
+            keys[size] = key;
+            versions[size] = version;
+            targets[size] = target;
+            size++;
+        } else {
+            megamorphic = true;
+        }
+    }
+
+    public boolean isMegamorphic() {
+        return megamorphic;
+    }
+
+    /**
+     * Adds this site to the given statistics.
+     */
+    public void collect(Statistics statistics) {
+        statistics.sites++;
+        if (megamorphic) {
+            statistics.megamorphicSites++;
+        }
+    }
+
+    /**
+     * The lookups of a group of inline caches.
+     */
+    public static final class Counters {
+
+        private long hits;
+        private long misses;
+        private long megamorphicMisses;
+
+        public long getHits() {
+            return hits;
+        }
+
+        public long getLookups() {
+            return hits + misses + megamorphicMisses;
+        }
+
+        /**
+         * Adds these counters to the given statistics.
+         */
+        public void collect(Statistics statistics) {
+            statistics.hits += hits;
+            statistics.misses += misses;
+            statistics.megamorphicMisses += megamorphicMisses;
+        }
+
+    }
+
+    /**
+     * Aggregated counters for a group of inline caches.
+     */
+    public static final class Statistics {
+
+        private long sites;
+        private long megamorphicSites;
+        private long hits;
+        private long misses;
+        private long megamorphicMisses;
+
+        public long getSites() {
+            return sites;
+        }
+
+        public long getMegamorphicSites() {
+            return megamorphicSites;
+        }
+
+        public long getHits() {
+            return hits;
+        }
+
+        public long getMisses() {
+            return misses;
+        }
+
+        public long getMegamorphicMisses() {
+            return megamorphicMisses;
+        }
+
+        public double getHitRate() {
+            long lookups = hits + misses + megamorphicMisses;
+            return lookups == 0 ? 0.0 : (double) hits / lookups;
+        }
+
+        @Override
+        public String toString() {
+            return "Statistics{" +
+                    "sites=" + sites +
+                    ", megamorphicSites=" + megamorphicSites +
+                    ", hits=" + hits +
+                    ", misses=" + misses +
+                    ", megamorphicMisses=" + megamorphicMisses +
+                    ", hitRate=" + getHitRate() +
+                    '}';
+        }
+
+    }
+
+}
@@ -5,35 +5,315 @@ import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.math.RoundingMode;
 import java.util.ArrayList;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
 public class Interpreter implements Ast.Visitor<Environment.PlcObject> {
 
-    private Scope scope = new Scope(null);
+    private Scope scope;
+
+    /**
+     * The scope holding {@code print} and the {@link Builtins}, between the
+     * host's scope and {@link #globals}, so that methods and fields of a
+     * source shadow builtins with the same name instead of clashing with them.
+     */
+    private final Scope builtins;
+    private final Scope globals;
+    private final Program program;
+    private ForkJoinPool pool = ForkJoinPool.commonPool();
+    private OutputSink output = OutputSink.standardOutput();
+
+    /**
+     * For interpreters running part of a {@code PARALLEL FOR}: the
+     * interpreter that started the outermost parallel loop, whose
+     * cancellation also stops this one, and the scopes shared by all
+     * iterations, whose variables the loop body may read but not assign.
+     * Both are {@code null} otherwise.
+     */
+    private final Interpreter forkedFrom;
+    private final Set<Scope> shared;
+
+    /**
+     * The number of {@code PARALLEL FOR} loops running below the outermost
+     * interpreter, shared with its forks. While it is nonzero, methods run
+     * on the interpreter of the calling thread, see {@link #WORKER}.
+     */
+    private final AtomicInteger parallelLoops;
+
+    /**
+     * The interpreter running part of a {@code PARALLEL FOR} on this thread,
+     * if any. Methods are defined by the outermost interpreter, so calls made
+     * by a fork look it up here to run on the fork instead.
+     */
+    private static final ThreadLocal<Interpreter> WORKER = new ThreadLocal<>();
+
+    /**
+     * The most elements of an iterable of unknown length that a
+     * {@code PARALLEL FOR} runs as one task.
+     */
+    private static final int PARALLEL_CHUNK = 1024;
+
+    /**
+     * The source whose methods are defined in {@link #globals}, which are
+     * kept across a {@link #reset(Scope)} rather than defined again, and
+     * removed when a different source is visited.
+     */
+    private Ast.Source loaded = null;
+
+    /**
+     * The value of the {@code RETURN} statement currently completing, or
+     * {@code null}. Statement lists stop executing while this is set, and
+     * the enclosing method invocation consumes it.
+     */
+    private Environment.PlcObject returnValue = null;
+    private final Map<Ast.Expr.Function, InlineCache<Environment.Function>> callSites = new IdentityHashMap<>();
+    private final Map<Ast.Expr.Access, InlineCache<Integer>> fieldSites = new IdentityHashMap<>();
+    private final Map<List<Ast.Stmt>, Boolean> blockDeclarations = new IdentityHashMap<>();
+
+    /**
+     * The profiler recording this interpreter's methods and statements, or
+     * {@code null} (the default) to skip profiling entirely.
+     */
+    private Profiler profiler = null;
+
+    /**
+     * The stack read by an attached {@link SamplingProfiler}, or
+     * {@code null} if this interpreter is not being sampled.
+     */
+    private ShadowStack shadowStack = null;
+
+    /**
+     * The metrics this interpreter reports to, or {@code null} (the default).
+     * Nodes evaluated are only counted while metrics are set; block scopes
+     * are counted either way, since they are rare next to nodes. Both are
+     * reported with the inline cache lookups when a script completes.
+     */
+    private InterpreterMetrics metrics = null;
+    private long evaluated = 0;
+    private long blockScopes = 0;
+    private int depth = 0;
+
+    /**
+     * The kinds of inline cache, in the order of {@link #cacheCounters}.
+     */
+    private static final String[] CACHE_KINDS = {"function", "method", "field"};
+
+    /**
+     * The lookups of each kind of inline cache, shared by its sites.
+     */
+    private final InlineCache.Counters[] cacheCounters = {new InlineCache.Counters(), new InlineCache.Counters(), new InlineCache.Counters()};
+
+    /**
+     * The hits and lookups of each kind of inline cache already reported, or
+     * counted before the current metrics were set.
+     */
+    private final long[] reportedCaches = new long[2 * CACHE_KINDS.length];
+
+    /**
+     * Set by {@link #cancel()} from any thread and checked on every loop
+     * iteration and method invocation.
+     */
+    private volatile boolean cancelled = false;
 
     public Interpreter(Scope parent) {
-        scope = new Scope(parent);
-        scope.defineFunction("print", 1, args -> {
-            System.out.println(args.get(0).getValue());
+        this(parent, null);
+    }
+
+    /**
+     * Creates an interpreter for one execution of the given program, reusing
+     * the program's analysis instead of repeating it. The program may be
+     * {@code null} when interpreting arbitrary ASTs.
+     */
+    public Interpreter(Scope parent, Program program) {
+        this.program = program;
+        this.forkedFrom = null;
+        this.shared = null;
+        this.parallelLoops = new AtomicInteger();
+        builtins = new Scope(parent);
+        builtins.defineFunction(Environment.Function.of("print", 1, args -> {
+            output.println(args[0].getValue());
             return Environment.NIL;
-        });
+        }));
+        BuiltinBinder.bind(Builtins.class, builtins);
+        scope = new Scope(builtins);
+        globals = scope;
+    }
+
+    /**
+     * Creates an interpreter that runs iterations of a {@code PARALLEL FOR}
+     * started by the given interpreter in children of the enclosing scope.
+     * It starts at the call depth of the loop, so the depths it reports
+     * continue the forking interpreter's stack.
+     */
+    private Interpreter(Interpreter forkedFrom, Scope enclosing, Set<Scope> shared, int depth) {
+        this.program = forkedFrom.program;
+        this.pool = forkedFrom.pool;
+        this.forkedFrom = forkedFrom.forkedFrom != null ? forkedFrom.forkedFrom : forkedFrom;
+        this.shared = shared;
+        this.parallelLoops = forkedFrom.parallelLoops;
+        this.metrics = forkedFrom.metrics;
+        this.depth = depth;
+        builtins = forkedFrom.builtins;
+        scope = enclosing;
+        globals = enclosing;
     }
 
     public Scope getScope() {
         return scope;
     }
 
+    public OutputSink getOutputSink() {
+        return output;
+    }
+
+    /**
+     * Sets the sink {@code print} writes to, which by default writes each line
+     * to {@link System#out} unbuffered. The sink is flushed at the end of each
+     * run of a source; callers evaluating other nodes directly through a
+     * {@link OutputSink#buffered buffered} sink flush it themselves.
+     */
+    public void setOutputSink(OutputSink output) {
+        this.output = output;
+    }
+
+    public Profiler getProfiler() {
+        return profiler;
+    }
+
+    /**
+     * Sets the profiler recording the methods and statements this
+     * interpreter executes, or {@code null} to stop profiling.
+     */
+    public void setProfiler(Profiler profiler) {
+        this.profiler = profiler;
+    }
+
+    void setShadowStack(ShadowStack shadowStack) {
+        this.shadowStack = shadowStack;
+    }
+
+    public InterpreterMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Sets the metrics this interpreter reports to, which may be shared with
+     * other interpreters, or {@code null} to stop reporting. Must not be
+     * called while a run is in progress.
+     */
+    public void setMetrics(InterpreterMetrics metrics) {
+        this.metrics = metrics;
+        evaluated = 0;
+        blockScopes = 0;
+        for (int i = 0; i < cacheCounters.length; i++) {
+            reportedCaches[2 * i] = cacheCounters[i].getHits();
+            reportedCaches[2 * i + 1] = cacheCounters[i].getLookups();
+        }
+    }
+
+    /**
+     * Sets the pool {@code PARALLEL FOR} loops run on, which is the common
+     * pool by default.
+     */
+    public void setForkJoinPool(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Requests that the current execution stop. The interpreter throws a
+     * {@link CancellationException} at the next loop iteration or method
+     * invocation, so long-running host functions are not interrupted.
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Prepares this interpreter for another run with the given scope as the
+     * parent of its global scope. Fields and other globals from earlier runs
+     * are removed, while builtins, the methods of the last source visited and
+     * inline caches are kept. Visiting the same source again reuses its
+     * methods; visiting a different one replaces them. Must not be called
+     * while a run is in progress.
+     */
+    public void reset(Scope parent) {
+        builtins.reset(parent);
+        globals.reset(builtins);
+        scope = globals;
+        returnValue = null;
+        cancelled = false;
+    }
+
+    @Override
+    public Environment.PlcObject visit(Ast ast) {
+        if (metrics != null) {
+            evaluated++;
+        }
+        return Ast.Visitor.super.visit(ast);
+    }
+
     @Override
     public Environment.PlcObject visit(Ast.Source ast) {
-        List<Environment.PlcObject> sourceList = new ArrayList<>();
-        for(Ast.Field fields : ast.getFields()) {
-            sourceList.add(visit(fields));
+        Events.Script event = new Events.Script();
+        event.begin();
+        InterpreterMetrics metrics = this.metrics;
+        long start = metrics != null ? System.nanoTime() : 0;
+        Throwable error = null;
+        try {
+            for(Ast.Field fields : ast.getFields()) {
+                visit(fields);
+            }
+            if (ast != loaded) {
+                if (loaded != null) {
+                    for (Ast.Method method : loaded.getMethods()) {
+                        globals.removeFunction(Symbol.of(method.getName()), method.getParameters().size());
+                    }
+                    loaded = null;
+                }
+                for(Ast.Method methods : ast.getMethods()) {
+                    visit(methods);
+                }
+                loaded = ast;
+            }
+            return scope.lookupFunction("main", 0).invoke0();
         }
-        for(Ast.Method methods : ast.getMethods()) {
-            visit(methods);
+        catch (RuntimeException | Error e) {
+            error = e;
+            throw e;
+        }
+        finally {
+            output.flush();
+            if (metrics != null) {
+                report(metrics);
+                metrics.script(System.nanoTime() - start, error == null);
+            }
+            event.end();
+            if (event.shouldCommit()) {
+                event.methods = ast.getMethods().size();
+                event.succeeded = error == null;
+                event.error = error != null ? error.toString() : null;
+                event.commit();
+            }
         }
-        return scope.lookupFunction("main", 0).invoke(sourceList);
     }
 
     @Override
@@ -49,7 +329,8 @@ public class Interpreter implements Ast.Visitor<Environment.PlcObject> {
 
     @Override
     public Environment.PlcObject visit(Ast.Method ast) {
-        throw new UnsupportedOperationException(); //TODO
+        scope.defineFunction(Environment.Function.of(ast.getName(), ast.getParameters().size(), new MethodInvoker(ast, scope)));
+        return Environment.NIL;
     }
 
     @Override
@@ -71,32 +352,39 @@ public class Interpreter implements Ast.Visitor<Environment.PlcObject> {
 
     @Override
     public Environment.PlcObject visit(Ast.Stmt.Assignment ast) {
-        if(ast.getReceiver() instanceof Ast.Expr.Access) {
-            Environment.PlcObject result = visit(ast.getReceiver());
-            try {
-                scope = scope.getParent();
-                result.setField(((Ast.Expr.Access) ast.getReceiver()).getName(), visit(ast.getValue()));
-            }
-            catch(RuntimeException E){
-                scope.defineVariable(((Ast.Expr.Access) ast.getReceiver()).getName(), visit(ast.getValue()));
+        if (!(ast.getReceiver() instanceof Ast.Expr.Access)) {
+            throw new RuntimeException("Expected an access expression as the receiver of an assignment.");
+        }
+        Ast.Expr.Access receiver = (Ast.Expr.Access) ast.getReceiver();
+        if (receiver.getReceiver().isPresent()) {
+            Environment.PlcObject object = visit(receiver.getReceiver().get());
+            object.getField(fieldSlot(receiver, object)).setValue(visit(ast.getValue()));
+        }
+        else {
+            Environment.PlcObject value = visit(ast.getValue());
+            if (shared != null && shared.contains(scope.findVariableScope(receiver.getName()))) {
+                throw new RuntimeException("The variable " + receiver.getName() + " is shared by the iterations of a PARALLEL FOR and cannot be assigned.");
             }
+            scope.lookupVariable(receiver.getName()).setValue(value);
         }
         return Environment.NIL;
     }
 
     @Override
     public Environment.PlcObject visit(Ast.Stmt.If ast) {
-        if(requireType(Boolean.class, visit(ast.getCondition()))) {
-            scope = new Scope(scope);
-            for(Ast.Stmt stmt : ast.getThenStatements()) {
-                visit(stmt);
-            }
+        List<Ast.Stmt> statements = requireType(Boolean.class, visit(ast.getCondition())) ? ast.getThenStatements() : ast.getElseStatements();
+        if (!declares(statements)) {
+            execute(statements);
+            return Environment.NIL;
         }
-        else {
-            scope = new Scope(scope);
-            for(Ast.Stmt stmt : ast.getElseStatements()) {
-                visit(stmt);
-            }
+        Scope enclosing = scope;
+        scope = new Scope(enclosing);
+        blockScopes++;
+        try {
+            execute(statements);
+        }
+        finally {
+            scope = enclosing;
         }
         return Environment.NIL;
     }
@@ -104,32 +392,158 @@ public class Interpreter implements Ast.Visitor<Environment.PlcObject> {
     @Override
     public Environment.PlcObject visit(Ast.Stmt.For ast) {
         Iterable iter = requireType(Iterable.class, visit(ast.getValue()));
-        for (Object obj : iter) {
-            try {
-                scope = new Scope(scope);
-                scope.defineVariable(ast.getName(), (Environment.PlcObject)obj);
-                for(Ast.Stmt stmt : ast.getStatements()){
-                    visit(stmt);
+        if (ast.isParallel()) {
+            executeParallel(ast, iter);
+        }
+        else {
+            iterate(ast, iter);
+        }
+        return Environment.NIL;
+    }
+
+    /**
+     * Runs the loop body for each element in a single scope below the current
+     * one, which is cleared between iterations if the body declares
+     * variables. Returns whether the body executed a {@code RETURN}.
+     */
+    private boolean iterate(Ast.Stmt.For ast, Iterable<?> iter) {
+        boolean declares = declares(ast.getStatements());
+        Scope enclosing = scope;
+        Scope body = new Scope(enclosing);
+        blockScopes++;
+        Environment.Variable variable = null;
+        scope = body;
+        Iterator<?> iterator = iter.iterator();
+        try {
+            while (iterator.hasNext()) {
+                Object obj = iterator.next();
+                checkCancelled();
+                if (declares) {
+                    body.clear();
+                    variable = null;
+                }
+                if (variable == null) {
+                    body.defineVariable(ast.getName(), (Environment.PlcObject) obj);
+                    variable = body.findVariable(ast.getName());
+                }
+                else {
+                    variable.setValue((Environment.PlcObject) obj);
+                }
+                if (execute(ast.getStatements())) {
+                    return true;
                 }
             }
-            finally {
-                scope = scope.getParent();
+        }
+        finally {
+            scope = enclosing;
+            if (iterator instanceof AutoCloseable) {
+                close((AutoCloseable) iterator);
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Closes an iterator backed by a resource, such as {@link Lines}, when a
+     * loop over it ends.
+     */
+    private static void close(AutoCloseable closeable) {
+        try {
+            closeable.close();
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Runs a {@code PARALLEL FOR} by splitting its elements across the
+     * fork/join pool. This interpreter reads the elements in chunks, so lazy
+     * iterables such as ranges, generators and {@link Lines} are never
+     * buffered whole, and submits each chunk as a task that runs its
+     * iterations on its own interpreter, in a fresh scope below the enclosing
+     * one. Iterations may read variables of the enclosing scopes but not
+     * assign them, and may not {@code RETURN}. Objects are shared, and field
+     * writes are not synchronized.
+     *
+     * Collections are split into chunks of a quarter of their share per
+     * worker, as before; iterables of unknown length start with single
+     * elements and double the chunk size up to {@link #PARALLEL_CHUNK}. At most
+     * four chunks per worker are pending at a time, so reading waits for the
+     * oldest one when the iterations fall behind.
+     */
+    private void executeParallel(Ast.Stmt.For ast, Iterable<?> iter) {
+        Set<Scope> shared = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (Scope current = scope; current != null; current = current.getParent()) {
+            shared.add(current);
+        }
+        if (this.shared != null) {
+            shared.addAll(this.shared);
+        }
+        int pending = pool.getParallelism() * 4;
+        boolean sized = iter instanceof Collection;
+        int chunk = sized ? Math.max(1, ((Collection<?>) iter).size() / pending) : 1;
+        Deque<ForkJoinTask<?>> tasks = new ArrayDeque<>();
+        Iterator<?> iterator = iter.iterator();
+        parallelLoops.incrementAndGet();
+        try {
+            while (iterator.hasNext()) {
+                checkCancelled();
+                List<Environment.PlcObject> elements = new ArrayList<>(chunk);
+                while (elements.size() < chunk && iterator.hasNext()) {
+                    elements.add((Environment.PlcObject) iterator.next());
+                }
+                if (tasks.size() == pending) {
+                    tasks.removeFirst().join();
+                }
+                tasks.addLast(pool.submit(new ParallelFor(ast, elements, scope, shared)));
+                if (!sized) {
+                    chunk = Math.min(PARALLEL_CHUNK, chunk * 2);
+                }
+            }
+            while (!tasks.isEmpty()) {
+                tasks.removeFirst().join();
+            }
+        }
+        finally {
+            // Let chunks that are still running finish before the enclosing
+            // scope is unwound, if an iteration or the iterator failed.
+            for (ForkJoinTask<?> task : tasks) {
+                task.quietlyJoin();
+            }
+            parallelLoops.decrementAndGet();
+            if (iterator instanceof AutoCloseable) {
+                close((AutoCloseable) iterator);
             }
         }
-        return Environment.NIL;
     }
 
     @Override
     public Environment.PlcObject visit(Ast.Stmt.While ast) {
-        while(requireType(Boolean.class, visit(ast.getCondition()))) {
+        if (!declares(ast.getStatements())) {
+            while (requireType(Boolean.class, visit(ast.getCondition()))) {
+                checkCancelled();
+                if (execute(ast.getStatements())) {
+                    break;
+                }
+            }
+            return Environment.NIL;
+        }
+        Scope enclosing = scope;
+        Scope body = new Scope(enclosing);
+        blockScopes++;
+        while (requireType(Boolean.class, visit(ast.getCondition()))) {
+            checkCancelled();
+            body.clear();
+            scope = body;
             try {
-                scope = new Scope(scope);
-                for(Ast.Stmt stmt : ast.getStatements()) {
-                    visit(stmt);
+                if (execute(ast.getStatements())) {
+                    break;
                 }
             }
             finally {
-                scope = scope.getParent();
+                scope = enclosing;
             }
         }
         return Environment.NIL;
@@ -137,7 +551,78 @@ public class Interpreter implements Ast.Visitor<Environment.PlcObject> {
 
     @Override
     public Environment.PlcObject visit(Ast.Stmt.Return ast) {
-        throw new Return(visit(ast.getValue()));
+        returnValue = visit(ast.getValue());
+        return Environment.NIL;
+    }
+
+    private void checkCancelled() {
+        if (cancelled || forkedFrom != null && forkedFrom.cancelled) {
+            throw new CancellationException("The execution was cancelled.");
+        }
+    }
+
+    /**
+     * Returns whether the block directly contains a declaration and therefore
+     * needs its own scope. Blocks without declarations are executed in the
+     * enclosing scope.
+     */
+    private boolean declares(List<Ast.Stmt> statements) {
+        Boolean declares = program != null ? program.declares(statements) : null;
+        if (declares == null) {
+            declares = blockDeclarations.get(statements);
+            if (declares == null) {
+                declares = Program.containsDeclaration(statements);
+                blockDeclarations.put(statements, declares);
+            }
+        }
+        return declares;
+    }
+
+    /**
+     * Executes the statements in the current scope, stopping early if one of
+     * them is a {@code RETURN}. Returns {@code true} if a {@code RETURN} was
+     * executed, in which case the enclosing statements must stop as well.
+     */
+    private boolean execute(List<Ast.Stmt> statements) {
+        ShadowStack stack = shadowStack;
+        if (stack == null) {
+            return executeStatements(statements, null);
+        }
+        // Restore the statement of the enclosing block when this one ends,
+        // which clears slot 0 once the outermost block completes so that an
+        // idle interpreter is not sampled as busy.
+        Ast.Stmt enclosing = stack.statement();
+        try {
+            return executeStatements(statements, stack);
+        }
+        finally {
+            stack.statement(enclosing);
+        }
+    }
+
+    private boolean executeStatements(List<Ast.Stmt> statements, ShadowStack stack) {
+        for (Ast.Stmt stmt : statements) {
+            if (stack != null) {
+                stack.statement(stmt);
+            }
+            Profiler profiler = this.profiler;
+            if (profiler == null) {
+                visit(stmt);
+            }
+            else {
+                profiler.enter(stmt);
+                try {
+                    visit(stmt);
+                }
+                finally {
+                    profiler.exit();
+                }
+            }
+            if (returnValue != null) {
+                return true;
+            }
+        }
+        return false;
     }
 
     @Override
@@ -188,8 +673,8 @@ public class Interpreter implements Ast.Visitor<Environment.PlcObject> {
             Object right = visit(ast.getRight()).getValue();
             if(left.getClass() == right.getClass()) {
                 if(left instanceof BigInteger) {
-                    BigInteger leftBI = requireType(BigInteger.class, visit(ast.getLeft()));
-                    BigInteger rightBI = requireType(BigInteger.class, visit(ast.getRight()));
+                    BigInteger leftBI = (BigInteger) left;
+                    BigInteger rightBI = (BigInteger) right;
                     int result = leftBI.compareTo(rightBI);
                     if(ast.getOperator().equals("<")) {
                         if(result < 0) {
@@ -225,8 +710,8 @@ public class Interpreter implements Ast.Visitor<Environment.PlcObject> {
                     }
                 }
                 else if(left.getClass() == BigDecimal.class) {
-                    BigDecimal leftBD = requireType(BigDecimal.class, visit(ast.getLeft()));
-                    BigDecimal rightBD = requireType(BigDecimal.class, visit(ast.getRight()));
+                    BigDecimal leftBD = (BigDecimal) left;
+                    BigDecimal rightBD = (BigDecimal) right;
                     int result = leftBD.compareTo(rightBD);
                     if(ast.getOperator().equals("<")) {
                         if(result < 0) {
@@ -270,13 +755,13 @@ public class Interpreter implements Ast.Visitor<Environment.PlcObject> {
             Object right = visit(ast.getRight()).getValue();
             if(left.getClass() == right.getClass()) {
                 if(left.getClass() == BigInteger.class) {
-                    BigInteger leftBI = requireType(BigInteger.class, visit(ast.getLeft()));
-                    BigInteger rightBI = requireType(BigInteger.class, visit(ast.getRight()));
+                    BigInteger leftBI = (BigInteger) left;
+                    BigInteger rightBI = (BigInteger) right;
                     return Environment.create(leftBI.subtract(rightBI));
                 }
                 else if(left.getClass() == BigDecimal.class) {
-                    BigDecimal leftBD = requireType(BigDecimal.class, visit(ast.getLeft()));
-                    BigDecimal rightBD = requireType(BigDecimal.class, visit(ast.getRight()));
+                    BigDecimal leftBD = (BigDecimal) left;
+                    BigDecimal rightBD = (BigDecimal) right;
                     return Environment.create(leftBD.subtract(rightBD));
                 }
                 else {
@@ -290,13 +775,13 @@ public class Interpreter implements Ast.Visitor<Environment.PlcObject> {
             Object right = visit(ast.getRight()).getValue();
             if(left.getClass() == right.getClass()) {
                 if(left.getClass() == BigInteger.class) {
-                    BigInteger leftBI = requireType(BigInteger.class, visit(ast.getLeft()));
-                    BigInteger rightBI = requireType(BigInteger.class, visit(ast.getRight()));
+                    BigInteger leftBI = (BigInteger) left;
+                    BigInteger rightBI = (BigInteger) right;
                     return Environment.create(leftBI.multiply(rightBI));
                 }
                 else if(left.getClass() == BigDecimal.class) {
-                    BigDecimal leftBD = requireType(BigDecimal.class, visit(ast.getLeft()));
-                    BigDecimal rightBD = requireType(BigDecimal.class, visit(ast.getRight()));
+                    BigDecimal leftBD = (BigDecimal) left;
+                    BigDecimal rightBD = (BigDecimal) right;
                     return Environment.create(leftBD.multiply(rightBD));
                 }
                 else {
@@ -310,16 +795,16 @@ public class Interpreter implements Ast.Visitor<Environment.PlcObject> {
             Object right = visit(ast.getRight()).getValue();
             if(left.getClass() == right.getClass()) {
                 if(left.getClass() == BigInteger.class) {
-                    BigInteger leftBI = requireType(BigInteger.class, visit(ast.getLeft()));
-                    BigInteger rightBI = requireType(BigInteger.class, visit(ast.getRight()));
+                    BigInteger leftBI = (BigInteger) left;
+                    BigInteger rightBI = (BigInteger) right;
                     if(rightBI.equals(BigInteger.ZERO)) {
                         throw new RuntimeException("Cannot divide by 0 for Integer");
                     }
                     return Environment.create(leftBI.divide(rightBI));
                 }
                 else if(left.getClass() == BigDecimal.class) {
-                    BigDecimal leftBD = requireType(BigDecimal.class, visit(ast.getLeft()));
-                    BigDecimal rightBD = requireType(BigDecimal.class, visit(ast.getRight()));
+                    BigDecimal leftBD = (BigDecimal) left;
+                    BigDecimal rightBD = (BigDecimal) right;
                     if(rightBD.equals(BigDecimal.ZERO)) {
                         throw new RuntimeException("Cannot divide by 0 for Decimal");
                     }
@@ -339,22 +824,22 @@ public class Interpreter implements Ast.Visitor<Environment.PlcObject> {
             return Environment.create(result);
         }
         else if(ast.getOperator().equals("+")) {
-            Object left = visit(ast.getLeft()).getValue();
-            Object right = visit(ast.getRight()).getValue();
+            Environment.PlcObject leftObject = visit(ast.getLeft());
+            Environment.PlcObject rightObject = visit(ast.getRight());
+            if(isString(leftObject.getRawValue()) && isString(rightObject.getRawValue())) {
+                return Environment.create(Rope.concat((CharSequence) leftObject.getRawValue(), (CharSequence) rightObject.getRawValue()));
+            }
+            Object left = leftObject.getValue();
+            Object right = rightObject.getValue();
             if(left.getClass() == right.getClass()) {
-                if(left.getClass() == String.class) {
-                    String leftStr = requireType(String.class, visit(ast.getLeft()));
-                    String rightStr = requireType(String.class, visit(ast.getRight()));
-                    return Environment.create(leftStr+rightStr);
-                }
-                else if(left.getClass() == BigInteger.class) {
-                    BigInteger leftBI = requireType(BigInteger.class, visit(ast.getLeft()));
-                    BigInteger rightBI = requireType(BigInteger.class, visit(ast.getRight()));
+                if(left.getClass() == BigInteger.class) {
+                    BigInteger leftBI = (BigInteger) left;
+                    BigInteger rightBI = (BigInteger) right;
                     return Environment.create(leftBI.add(rightBI));
                 }
                 else if(left.getClass() == BigDecimal.class) {
-                    BigDecimal leftBD = requireType(BigDecimal.class, visit(ast.getLeft()));
-                    BigDecimal rightBD = requireType(BigDecimal.class, visit(ast.getRight()));
+                    BigDecimal leftBD = (BigDecimal) left;
+                    BigDecimal rightBD = (BigDecimal) right;
                     return Environment.create(leftBD.add(rightBD));
                 }
                 else {
@@ -366,27 +851,159 @@ public class Interpreter implements Ast.Visitor<Environment.PlcObject> {
         throw new RuntimeException("Binary broken dawg");
     }
 
+    private static boolean isString(Object value) {
+        return value instanceof String || value instanceof Rope;
+    }
+
     @Override
     public Environment.PlcObject visit(Ast.Expr.Access ast) {
         if (ast.getReceiver().isPresent()) {
-            visit(ast.getReceiver().get());
-            return Environment.create(scope.lookupVariable((String)visit(ast.getReceiver().get()).getValue()).getValue().getField(ast.getName()).getValue().getValue());
+            Environment.PlcObject receiver = visit(ast.getReceiver().get());
+            return receiver.getField(fieldSlot(ast, receiver)).getValue();
         }
-        else {
-            return scope.lookupVariable(ast.getName()).getValue();
+        return scope.lookupVariable(ast.getName()).getValue();
+    }
+
+    /**
+     * Returns the slot of the accessed field in the receiver's shape, using
+     * the inline cache of the access expression.
+     */
+    private int fieldSlot(Ast.Expr.Access ast, Environment.PlcObject receiver) {
+        InlineCache<Integer> cache = fieldSites.get(ast);
+        if (cache == null) {
+            cache = new InlineCache<>(cacheCounters[2]);
+            fieldSites.put(ast, cache);
         }
+        Integer slot = cache.lookup(receiver.getShape(), 0);
+        if (slot == null) {
+            slot = receiver.getShape().getSlot(ast.getName());
+            if (slot < 0) {
+                throw new RuntimeException("The field " + ast.getName() + " is not defined in this object.");
+            }
+            cache.update(receiver.getShape(), 0, slot);
+        }
+        return slot;
     }
 
     @Override
     public Environment.PlcObject visit(Ast.Expr.Function ast) {
-        /*if (ast.getReceiver().isPresent()) {
-            visit(ast.getReceiver().get());
-            return Environment.create(scope.lookupFunction());
+        InlineCache<Environment.Function> cache = callSites.get(ast);
+        if (cache == null) {
+            cache = new InlineCache<>(cacheCounters[ast.getReceiver().isPresent() ? 1 : 0]);
+            callSites.put(ast, cache);
+        }
+        if (ast.getReceiver().isPresent()) {
+            Environment.PlcObject receiver = visit(ast.getReceiver().get());
+            Environment.Function method = cache.lookup(receiver.getShape(), 0);
+            if (method == null) {
+                method = receiver.getShape().lookupMethod(Symbol.of(ast.getName()), ast.getArguments().size() + 1);
+                if (method == null) {
+                    return receiver.callMethod(ast.getName(), Arrays.asList(evaluate(ast.getArguments(), 0)));
+                }
+                cache.update(receiver.getShape(), 0, method);
+            }
+            return invokeMethod(method, receiver, ast.getArguments());
+        }
+        Scope functionScope = scope.getFunctionScope();
+        if (functionScope == null) {
+            throw new RuntimeException("The function " + ast.getName() + "/" + ast.getArguments().size() + " is not defined in this scope.");
+        }
+        long version = functionScope.getVersion();
+        Environment.Function function = cache.lookup(functionScope, version);
+        if (function == null) {
+            function = scope.resolveFunction(Symbol.of(ast.getName()), ast.getArguments().size());
+            cache.update(functionScope, version, function);
+        }
+        return invokeFunction(function, ast.getArguments());
+    }
+
+    /**
+     * Evaluates the arguments and invokes the function, using the fixed-arity
+     * entry points where possible to avoid allocating an argument array.
+     */
+    private Environment.PlcObject invokeFunction(Environment.Function function, List<Ast.Expr> arguments) {
+        switch (arguments.size()) {
+            case 0:
+                return function.invoke0();
+            case 1:
+                return function.invoke1(visit(arguments.get(0)));
+            case 2:
+                return function.invoke2(visit(arguments.get(0)), visit(arguments.get(1)));
+            case 3:
+                return function.invoke3(visit(arguments.get(0)), visit(arguments.get(1)), visit(arguments.get(2)));
+            case 4:
+                return function.invoke4(visit(arguments.get(0)), visit(arguments.get(1)), visit(arguments.get(2)), visit(arguments.get(3)));
+            default:
+                return function.invoke(evaluate(arguments, 0));
+        }
+    }
+
+    /**
+     * As {@link #invokeFunction}, but with the receiver as the first argument.
+     */
+    private Environment.PlcObject invokeMethod(Environment.Function method, Environment.PlcObject receiver, List<Ast.Expr> arguments) {
+        switch (arguments.size()) {
+            case 0:
+                return method.invoke1(receiver);
+            case 1:
+                return method.invoke2(receiver, visit(arguments.get(0)));
+            case 2:
+                return method.invoke3(receiver, visit(arguments.get(0)), visit(arguments.get(1)));
+            case 3:
+                return method.invoke4(receiver, visit(arguments.get(0)), visit(arguments.get(1)), visit(arguments.get(2)));
+            default:
+                Environment.PlcObject[] array = evaluate(arguments, 1);
+                array[0] = receiver;
+                return method.invoke(array);
+        }
+    }
+
+    /**
+     * Evaluates the arguments into a new array, leaving the given number of
+     * leading elements empty.
+     */
+    private Environment.PlcObject[] evaluate(List<Ast.Expr> arguments, int offset) {
+        Environment.PlcObject[] array = new Environment.PlcObject[arguments.size() + offset];
+        for (int i = 0; i < arguments.size(); i++) {
+            array[i + offset] = visit(arguments.get(i));
+        }
+        return array;
+    }
+
+    /**
+     * Returns the combined inline cache counters for unqualified function
+     * calls ({@code "function"}), method calls ({@code "method"}), variable
+     * and field accesses ({@code "field"}). Variables are not cached: each
+     * invocation runs in a new frame, so no key identifies a variable's scope
+     * across calls more cheaply than looking it up.
+     */
+    public Map<String, InlineCache.Statistics> getCacheStatistics() {
+        Map<String, InlineCache.Statistics> statistics = new LinkedHashMap<>();
+        for (int i = 0; i < CACHE_KINDS.length; i++) {
+            InlineCache.Statistics kind = new InlineCache.Statistics();
+            cacheCounters[i].collect(kind);
+            statistics.put(CACHE_KINDS[i], kind);
+        }
+        callSites.forEach((ast, cache) -> cache.collect(statistics.get(ast.getReceiver().isPresent() ? "method" : "function")));
+        fieldSites.values().forEach(cache -> cache.collect(statistics.get("field")));
+        return statistics;
+    }
+
+    /**
+     * Adds the nodes, block scopes and inline cache lookups counted since the
+     * last report to the given metrics.
+     */
+    private void report(InterpreterMetrics metrics) {
+        metrics.add(evaluated, blockScopes);
+        evaluated = 0;
+        blockScopes = 0;
+        for (int i = 0; i < cacheCounters.length; i++) {
+            long hits = cacheCounters[i].getHits();
+            long lookups = cacheCounters[i].getLookups();
+            metrics.addCacheLookups(CACHE_KINDS[i], hits - reportedCaches[2 * i], lookups - reportedCaches[2 * i + 1]);
+            reportedCaches[2 * i] = hits;
+            reportedCaches[2 * i + 1] = lookups;
         }
-        else {
-            return scope.lookupFunction(ast.getName(), );
-        }*/
-        return Environment.NIL;
     }
 
     /**
@@ -401,14 +1018,171 @@ public class Interpreter implements Ast.Visitor<Environment.PlcObject> {
     }
 
     /**
-     * Exception class for returning values.
+     * Executes the body of a method in the given frame, returning the value
+     * of its {@code RETURN} or {@code NIL}.
+     */
+    private Environment.PlcObject run(Ast.Method method, Scope frame) {
+        checkCancelled();
+        Scope caller = scope;
+        scope = frame;
+        Profiler profiler = this.profiler;
+        if (profiler != null) {
+            profiler.enter(method);
+        }
+        ShadowStack stack = shadowStack;
+        if (stack != null) {
+            stack.push(method);
+        }
+        InterpreterMetrics metrics = this.metrics;
+        depth++;
+        if (metrics != null) {
+            metrics.enter(depth);
+        }
+        Events.MethodInvocation event = Events.MethodInvocation.start();
+        try {
+            execute(method.getStatements());
+            return returnValue != null ? returnValue : Environment.NIL;
+        }
+        finally {
+            if (event != null) {
+                event.end(method);
+            }
+            if (metrics != null) {
+                metrics.exit();
+            }
+            depth--;
+            if (stack != null) {
+                stack.pop();
+            }
+            if (profiler != null) {
+                profiler.exit();
+            }
+            returnValue = null;
+            scope = caller;
+        }
+    }
+
+    /**
+     * A chunk of the elements of a {@code PARALLEL FOR}, run on a new
+     * interpreter.
+     */
+    private final class ParallelFor extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final Ast.Stmt.For ast;
+        private final List<Environment.PlcObject> elements;
+        private final Scope enclosing;
+        private final Set<Scope> shared;
+        private final int depth;
+
+        private ParallelFor(Ast.Stmt.For ast, List<Environment.PlcObject> elements, Scope enclosing, Set<Scope> shared) {
+            this.ast = ast;
+            this.elements = elements;
+            this.enclosing = enclosing;
+            this.shared = shared;
+            this.depth = Interpreter.this.depth;
+        }
+
+        @Override
+        protected void compute() {
+            Interpreter interpreter = new Interpreter(Interpreter.this, enclosing, shared, depth);
+            Interpreter previous = WORKER.get();
+            WORKER.set(interpreter);
+            try {
+                if (interpreter.iterate(ast, elements)) {
+                    throw new RuntimeException("RETURN is not allowed in a PARALLEL FOR.");
+                }
+            }
+            finally {
+                WORKER.set(previous);
+                if (interpreter.metrics != null) {
+                    interpreter.report(interpreter.metrics);
+                }
+            }
+        }
+
+    }
+
+    /**
+     * Invokes a method declared in the source. Each invocation runs in a new
+     * scope whose parent is the scope the method was defined in; the
+     * fixed-arity entry points bind parameters directly from their arguments.
      */
-    private static class Return extends RuntimeException {
+    private final class MethodInvoker implements Environment.Invoker {
+
+        private final Ast.Method method;
+        private final String[] parameters;
+        private final Scope definition;
 
-        private final Environment.PlcObject value;
+        private MethodInvoker(Ast.Method method, Scope definition) {
+            this.method = method;
+            this.parameters = method.getParameters().toArray(new String[0]);
+            this.definition = definition;
+        }
+
+        @Override
+        public Environment.PlcObject invoke(Environment.PlcObject[] arguments) {
+            Scope frame = new Scope(definition);
+            for (int i = 0; i < parameters.length; i++) {
+                frame.defineVariable(parameters[i], arguments[i]);
+            }
+            return run(frame);
+        }
+
+        @Override
+        public Environment.PlcObject invoke0() {
+            return run(new Scope(definition));
+        }
+
+        @Override
+        public Environment.PlcObject invoke1(Environment.PlcObject first) {
+            Scope frame = new Scope(definition);
+            frame.defineVariable(parameters[0], first);
+            return run(frame);
+        }
+
+        @Override
+        public Environment.PlcObject invoke2(Environment.PlcObject first, Environment.PlcObject second) {
+            Scope frame = new Scope(definition);
+            frame.defineVariable(parameters[0], first);
+            frame.defineVariable(parameters[1], second);
+            return run(frame);
+        }
+
+        @Override
+        public Environment.PlcObject invoke3(Environment.PlcObject first, Environment.PlcObject second, Environment.PlcObject third) {
+            Scope frame = new Scope(definition);
+            frame.defineVariable(parameters[0], first);
+            frame.defineVariable(parameters[1], second);
+            frame.defineVariable(parameters[2], third);
+            return run(frame);
+        }
+
+        @Override
+        public Environment.PlcObject invoke4(Environment.PlcObject first, Environment.PlcObject second, Environment.PlcObject third, Environment.PlcObject fourth) {
+            Scope frame = new Scope(definition);
+            frame.defineVariable(parameters[0], first);
+            frame.defineVariable(parameters[1], second);
+            frame.defineVariable(parameters[2], third);
+            frame.defineVariable(parameters[3], fourth);
+            return run(frame);
+        }
+
+        private Environment.PlcObject run(Scope frame) {
+            Interpreter interpreter = Interpreter.this;
+            if (parallelLoops.get() != 0 && WORKER.get() != null) {
+                interpreter = WORKER.get();
+            }
+            return interpreter.run(method, frame);
+        }
 
-        private Return(Environment.PlcObject value) {
-            this.value = value;
+        @Override
+        public String toString() {
+            return "MethodInvoker{" +
+                    "name='" + method.getName() + '\'' +
+                    ", parameters=" + method.getParameters() +
+                    '}';
         }
 
     }
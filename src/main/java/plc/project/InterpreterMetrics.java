@@ -0,0 +1,240 @@
+package plc.project;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Operational counters for interpreters sharing this instance, see
+ * {@link Interpreter#setMetrics(InterpreterMetrics)}, exposed over JMX once
+ * {@link #register(String) registered}. Every counter is a {@link LongAdder}
+ * (or {@link LongAccumulator}), so interpreters on different threads update
+ * separate cells instead of contending for one.
+ *
+ * Function calls, method frames and the scope depth are updated as they
+ * happen. Nodes evaluated, block scopes and inline cache lookups are counted
+ * by each interpreter without synchronization and added here when a script
+ * (or the share of a {@code PARALLEL FOR} run by a fork) completes, so they
+ * lag behind a script that is still running.
+ *
+ * The scope depth is the number of method frames on an interpreter's stack;
+ * the current depth is summed over all running interpreters.
+ */
+public final class InterpreterMetrics implements InterpreterMetricsMBean {
+
+    public static final String DOMAIN = "plc.project";
+
+    private static final int BUCKETS = 32;
+
+    private final LongAdder scripts = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder nodes = new LongAdder();
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder scopes = new LongAdder();
+    private final LongAdder depth = new LongAdder();
+    private final LongAccumulator maxDepth = new LongAccumulator(Math::max, 0);
+    private final LongAdder latency = new LongAdder();
+    private final LongAdder[] histogram = new LongAdder[BUCKETS];
+
+    /**
+     * The hits and lookups of each kind of inline cache, keyed as in
+     * {@link Interpreter#getCacheStatistics()}.
+     */
+    private final Map<String, LongAdder[]> caches = new LinkedHashMap<>();
+
+    public InterpreterMetrics() {
+        for (int i = 0; i < BUCKETS; i++) {
+            histogram[i] = new LongAdder();
+        }
+        for (String kind : Arrays.asList("function", "method", "field")) {
+            caches.put(kind, new LongAdder[] {new LongAdder(), new LongAdder()});
+        }
+    }
+
+    /**
+     * Registers these metrics with the platform MBean server under
+     * {@code plc.project:type=InterpreterMetrics,name=<name>}.
+     */
+    public ObjectName register(String name) {
+        try {
+            ObjectName objectName = new ObjectName(DOMAIN + ":type=InterpreterMetrics,name=" + name);
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+            return objectName;
+        } catch (JMException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    public void unregister(ObjectName name) {
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(name);
+        } catch (JMException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Records a method invocation starting at the given scope depth, which
+     * must be matched by a call to {@link #exit()}.
+     */
+    void enter(int depth) {
+        calls.increment();
+        scopes.increment();
+        this.depth.increment();
+        maxDepth.accumulate(depth);
+    }
+
+    void exit() {
+        depth.decrement();
+    }
+
+    /**
+     * Adds the counts an interpreter accumulated since it last reported.
+     */
+    void add(long nodes, long scopes) {
+        this.nodes.add(nodes);
+        this.scopes.add(scopes);
+    }
+
+    void addCacheLookups(String kind, long hits, long lookups) {
+        LongAdder[] counts = caches.get(kind);
+        counts[0].add(hits);
+        counts[1].add(lookups);
+    }
+
+    void script(long nanos, boolean succeeded) {
+        scripts.increment();
+        if (!succeeded) {
+            failures.increment();
+        }
+        long micros = nanos / 1000;
+        latency.add(micros);
+        histogram[Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(micros))].increment();
+    }
+
+    @Override
+    public long getScriptsExecuted() {
+        return scripts.sum();
+    }
+
+    @Override
+    public long getScriptsFailed() {
+        return failures.sum();
+    }
+
+    @Override
+    public long getNodesEvaluated() {
+        return nodes.sum();
+    }
+
+    @Override
+    public long getFunctionCalls() {
+        return calls.sum();
+    }
+
+    @Override
+    public long getScopeAllocations() {
+        return scopes.sum();
+    }
+
+    @Override
+    public double getFunctionCacheHitRate() {
+        return hitRate("function");
+    }
+
+    @Override
+    public double getMethodCacheHitRate() {
+        return hitRate("method");
+    }
+
+    @Override
+    public double getFieldCacheHitRate() {
+        return hitRate("field");
+    }
+
+    private double hitRate(String kind) {
+        LongAdder[] counts = caches.get(kind);
+        long lookups = counts[1].sum();
+        return lookups == 0 ? 0.0 : (double) counts[0].sum() / lookups;
+    }
+
+    @Override
+    public long getCurrentScopeDepth() {
+        return depth.sum();
+    }
+
+    @Override
+    public long getMaxScopeDepth() {
+        return maxDepth.get();
+    }
+
+    @Override
+    public long[] getLatencyHistogram() {
+        long[] counts = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = histogram[i].sum();
+        }
+        return counts;
+    }
+
+    @Override
+    public double getMeanLatency() {
+        long scripts = this.scripts.sum();
+        return scripts == 0 ? 0.0 : (double) latency.sum() / scripts;
+    }
+
+    @Override
+    public long getMedianLatency() {
+        return percentile(0.5);
+    }
+
+    @Override
+    public long getP99Latency() {
+        return percentile(0.99);
+    }
+
+    /**
+     * Returns the upper bound in microseconds of the histogram bucket
+     * containing the given fraction of scripts.
+     */
+    private long percentile(double fraction) {
+        long[] counts = getLatencyHistogram();
+        long total = 0;
+        for (long count : counts) {
+            total += count;
+        }
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen > 0 && seen >= fraction * total) {
+                return 1L << i;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Clears every counter except the current scope depth. Updates made by
+     * running interpreters during the reset may or may not be kept.
+     */
+    @Override
+    public void reset() {
+        for (LongAdder adder : Arrays.asList(scripts, failures, nodes, calls, scopes, latency)) {
+            adder.reset();
+        }
+        maxDepth.reset();
+        for (LongAdder adder : histogram) {
+            adder.reset();
+        }
+        for (LongAdder[] counts : caches.values()) {
+            counts[0].reset();
+            counts[1].reset();
+        }
+    }
+
+}
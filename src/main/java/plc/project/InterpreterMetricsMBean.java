@@ -0,0 +1,50 @@
+package plc.project;
+
+/**
+ * The management interface of {@link InterpreterMetrics}. Counts are totals
+ * since the metrics were created or last {@link #reset()}; latencies are in
+ * microseconds.
+ */
+public interface InterpreterMetricsMBean {
+
+    long getScriptsExecuted();
+
+    long getScriptsFailed();
+
+    long getNodesEvaluated();
+
+    long getFunctionCalls();
+
+    long getScopeAllocations();
+
+    double getFunctionCacheHitRate();
+
+    double getMethodCacheHitRate();
+
+    double getFieldCacheHitRate();
+
+    long getCurrentScopeDepth();
+
+    long getMaxScopeDepth();
+
+    /**
+     * Returns the number of scripts by latency: element {@code 0} counts
+     * those under a microsecond and element {@code i} those from
+     * {@code 2^(i-1)} up to {@code 2^i} microseconds, with the last element
+     * also counting anything slower.
+     */
+    long[] getLatencyHistogram();
+
+    double getMeanLatency();
+
+    /**
+     * Returns the upper bound of the histogram bucket containing the median
+     * latency, or {@code 0} if no script has run.
+     */
+    long getMedianLatency();
+
+    long getP99Latency();
+
+    void reset();
+
+}
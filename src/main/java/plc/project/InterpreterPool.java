@@ -0,0 +1,75 @@
+package plc.project;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * A bounded pool of interpreters for one {@link Program}. Pooled
+ * interpreters are {@link Interpreter#reset(Scope) reset} between runs, so
+ * they keep their builtins, the program's methods and warm inline caches, but
+ * nothing from the globals of earlier runs.
+ *
+ * Executing never blocks: when no interpreter is idle a new one is created,
+ * and interpreters returned to a full pool are discarded.
+ */
+public final class InterpreterPool {
+
+    private final Program program;
+    private final BlockingQueue<Interpreter> idle;
+    private volatile InterpreterMetrics metrics = null;
+
+    public InterpreterPool(Program program, int capacity) {
+        this.program = program;
+        this.idle = new ArrayBlockingQueue<>(capacity);
+    }
+
+    public Program getProgram() {
+        return program;
+    }
+
+    public int getIdleCount() {
+        return idle.size();
+    }
+
+    /**
+     * Sets the metrics that executions report to from now on, or
+     * {@code null} to stop reporting.
+     */
+    public void setMetrics(InterpreterMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * Executes the program with the given scope as the parent of its global
+     * scope, returning the result of {@code main}.
+     */
+    public Environment.PlcObject execute(Scope parent) {
+        return execute(parent, null);
+    }
+
+    /**
+     * Executes the program like {@link #execute(Scope)}, with {@code print}
+     * writing to the given sink, or to the interpreter's default sink if it is
+     * {@code null}.
+     */
+    public Environment.PlcObject execute(Scope parent, OutputSink output) {
+        Interpreter interpreter = idle.poll();
+        if (interpreter == null) {
+            interpreter = new Interpreter(parent, program);
+        } else {
+            interpreter.reset(parent);
+        }
+        interpreter.setMetrics(metrics);
+        OutputSink previous = interpreter.getOutputSink();
+        if (output != null) {
+            interpreter.setOutputSink(output);
+        }
+        try {
+            return interpreter.visit(program.getSource());
+        } finally {
+            interpreter.setOutputSink(previous);
+            idle.offer(interpreter);
+        }
+    }
+
+}
@@ -1,5 +1,6 @@
 package plc.project;
 
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -30,6 +31,19 @@ public final class Lexer {
      * whitespace where appropriate.
      */
     public List<Token> lex() {
+        Events.Lex event = new Events.Lex();
+        event.begin();
+        List<Token> tokenList = lexTokens();
+        event.end();
+        if (event.shouldCommit()) {
+            event.bytes = chars.input.getBytes(StandardCharsets.UTF_8).length;
+            event.tokens = tokenList.size();
+            event.commit();
+        }
+        return tokenList;
+    }
+
+    private List<Token> lexTokens() {
         List<Token> tokenList = new ArrayList<>();
         while(chars.input.length() != chars.index) {
             while(match("[ \b\n\r\t]")) {
@@ -55,7 +69,7 @@ public final class Lexer {
         if(peek("[A-Za-z_]+")){
             return lexIdentifier();
         }
-        else if(match("[+-]")||peek("[0-9]")){
+        else if(peek("[+-]", "[0-9]") || peek("[0-9]")){
             return lexNumber();
         }
         else if (match("\'","[^'\\n\\r\\\\]","\'")||match("\'","\\\\","[bnrt'\"\\\\]", "\'")) {
@@ -75,14 +89,15 @@ public final class Lexer {
 
     public Token lexIdentifier() {
         if(match("[A-Za-z_]+")) {
-            while(match("[A-Za-z0-9_-]*")){
-                chars.advance();
+            while(match("[A-Za-z0-9_-]")){
+
             }
         }
         return chars.emit(Token.Type.IDENTIFIER);
     }
 
     public Token lexNumber() {
+        match("[+-]");
         if(match("[0-9]")) {
             while (match("[0-9]")) {
 
@@ -0,0 +1,101 @@
+package plc.project;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * A lazy iterable over the lines of a file, backing the {@code lines}
+ * builtin of {@link FileBuiltins}. Each iteration opens a buffered reader over a {@link FileChannel}
+ * and reads one line at a time, so files larger than memory can be processed
+ * by a {@code FOR} loop. The file is closed when the iteration reaches the
+ * end, or by the loop if it exits early (see {@link Closeable}).
+ */
+public final class Lines implements Iterable<Environment.PlcObject> {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Path path;
+
+    public Lines(Path path) {
+        this.path = path;
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    @Override
+    public Iterator<Environment.PlcObject> iterator() {
+        try {
+            FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+            return new LineIterator(new BufferedReader(Channels.newReader(channel, StandardCharsets.UTF_8.newDecoder(), -1), BUFFER_SIZE));
+        } catch (IOException e) {
+            throw new RuntimeException("Unable to read the file " + path + ".", e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "Lines{" +
+                "path=" + path +
+                '}';
+    }
+
+    private final class LineIterator implements Iterator<Environment.PlcObject>, Closeable {
+
+        private final BufferedReader reader;
+        private String next;
+
+        private LineIterator(BufferedReader reader) {
+            this.reader = reader;
+            advance();
+        }
+
+        private void advance() {
+            try {
+                next = reader.readLine();
+                if (next == null) {
+                    reader.close();
+                }
+            } catch (IOException e) {
+                close();
+                throw new RuntimeException("Unable to read the file " + path + ".", e);
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public Environment.PlcObject next() {
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            Environment.PlcObject line = Environment.create(next);
+            advance();
+            return line;
+        }
+
+        @Override
+        public void close() {
+            next = null;
+            try {
+                reader.close();
+            } catch (IOException e) {
+                throw new RuntimeException("Unable to close the file " + path + ".", e);
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,142 @@
+package plc.project;
+
+import java.io.PrintStream;
+import java.util.function.Supplier;
+
+/**
+ * Where the {@code print} builtin writes to. Sinks are thread-safe, since
+ * the iterations of a {@code PARALLEL FOR} print to the same sink, and the
+ * interpreter {@link #flush() flushes} its sink at the end of every run.
+ */
+public interface OutputSink {
+
+    /**
+     * Writes the value followed by a line separator.
+     */
+    void println(Object value);
+
+    /**
+     * Writes any buffered output to the underlying destination.
+     */
+    void flush();
+
+    /**
+     * Returns a sink that writes every line to {@link System#out} as it is
+     * printed, looking up the current stream each time. This is the default,
+     * so output interleaves with other writes to standard output and is not
+     * lost if the host never flushes.
+     */
+    static OutputSink standardOutput() {
+        return new Direct(() -> System.out);
+    }
+
+    /**
+     * Returns a sink that writes every line to the given stream as it is
+     * printed.
+     */
+    static OutputSink unbuffered(PrintStream stream) {
+        return new Direct(() -> stream);
+    }
+
+    /**
+     * Returns a sink that buffers output and writes it to the given stream
+     * once roughly {@code capacity} characters are pending, or on flush.
+     * Buffering is opt-in: it is much faster for scripts printing many lines,
+     * but output only appears when the buffer fills or the run ends.
+     */
+    static OutputSink buffered(PrintStream stream, int capacity) {
+        return new Buffered(() -> stream, capacity);
+    }
+
+    /**
+     * Returns a sink that keeps everything written to it in memory, for
+     * capturing the output of a single execution.
+     */
+    static Capture capture() {
+        return new Capture();
+    }
+
+    final class Direct implements OutputSink {
+
+        private final Supplier<PrintStream> stream;
+
+        private Direct(Supplier<PrintStream> stream) {
+            this.stream = stream;
+        }
+
+        @Override
+        public void println(Object value) {
+            stream.get().println(value);
+        }
+
+        @Override
+        public void flush() {
+            stream.get().flush();
+        }
+
+    }
+
+    final class Buffered implements OutputSink {
+
+        private static final int DEFAULT_CAPACITY = 8192;
+        private static final String LINE_SEPARATOR = System.lineSeparator();
+
+        private final Supplier<PrintStream> stream;
+        private final int capacity;
+        private final StringBuilder buffer;
+
+        private Buffered(Supplier<PrintStream> stream, int capacity) {
+            this.stream = stream;
+            this.capacity = capacity;
+            this.buffer = new StringBuilder(Math.min(capacity, DEFAULT_CAPACITY) + 64);
+        }
+
+        @Override
+        public synchronized void println(Object value) {
+            buffer.append(value).append(LINE_SEPARATOR);
+            if (buffer.length() >= capacity) {
+                flush();
+            }
+        }
+
+        @Override
+        public synchronized void flush() {
+            if (buffer.length() > 0) {
+                PrintStream target = stream.get();
+                target.append(buffer);
+                target.flush();
+                buffer.setLength(0);
+            }
+        }
+
+    }
+
+    final class Capture implements OutputSink {
+
+        private final StringBuilder buffer = new StringBuilder();
+
+        private Capture() {}
+
+        @Override
+        public synchronized void println(Object value) {
+            buffer.append(value).append(System.lineSeparator());
+        }
+
+        @Override
+        public void flush() {}
+
+        /**
+         * Returns everything written so far.
+         */
+        public synchronized String getOutput() {
+            return buffer.toString();
+        }
+
+        @Override
+        public String toString() {
+            return getOutput();
+        }
+
+    }
+
+}
@@ -31,13 +31,28 @@ public final class Parser {
      * Parses the {@code source} rule.
      */
     public Ast.Source parseSource() throws ParseException {
+        Events.Parse event = new Events.Parse();
+        event.begin();
+        Ast.Source source = parseUnrecordedSource();
+        event.end();
+        if (event.shouldCommit()) {
+            event.tokens = tokens.index;
+            event.nodes = Events.count(source);
+            event.commit();
+        }
+        return source;
+    }
+
+    private Ast.Source parseUnrecordedSource() throws ParseException {
         List<Ast.Field> fieldList = new ArrayList<>();
         List<Ast.Method> methodList = new ArrayList<>();
         while(match("LET")) {
             fieldList.add(parseField());
         }
-        while(match("DEF")) {
-            methodList.add(parseMethod());
+        while(peek("DEF")) {
+            int offset = tokens.get(0).getIndex();
+            match("DEF");
+            methodList.add(parseMethod().at(offset));
         }
         Ast.Source source = new Ast.Source(fieldList, methodList);
         return source;
@@ -109,6 +124,11 @@ public final class Parser {
      * statement, then it is an expression/assignment statement.
      */
     public Ast.Stmt parseStatement() throws ParseException {
+        int offset = tokens.has(0) ? tokens.get(0).getIndex() : -1;
+        return parseUnmarkedStatement().at(offset);
+    }
+
+    private Ast.Stmt parseUnmarkedStatement() throws ParseException {
         if(match("LET")) {
             return parseDeclarationStatement();
         }
@@ -118,6 +138,9 @@ public final class Parser {
         else if (match("FOR")) {
             return parseForStatement();
         }
+        else if (match("PARALLEL", "FOR")) {
+            return parseParallelForStatement();
+        }
         else if (match("WHILE")) {
             return parseWhileStatement();
         }
@@ -179,14 +202,11 @@ public final class Parser {
         if (match("DO")) {
             List<Ast.Stmt> thenStatements = new ArrayList<>();
             List<Ast.Stmt> elseStatements = new ArrayList<>();
-            while(!peek("ELSE") || !peek("END")) {
+            while(!peek("ELSE") && !peek("END")) {
                 if (tokens.tokens.size() == tokens.index) {
                     throw new ParseException("No 'ELSE or END' found", tokens.index);
                 }
                 thenStatements.add(parseStatement());
-                if(!peek("ELSE") || !peek("END")) {
-                    break;
-                }
             }
             if (match("ELSE")) {
                 while(!peek("END")) {
@@ -215,6 +235,19 @@ public final class Parser {
      * {@code FOR}.
      */
     public Ast.Stmt.For parseForStatement() throws ParseException {
+        return parseForStatement(false);
+    }
+
+    /**
+     * Parses a parallel for statement from the {@code statement} rule. This
+     * method should only be called if the next tokens start a parallel for
+     * statement, aka {@code PARALLEL FOR}.
+     */
+    public Ast.Stmt.For parseParallelForStatement() throws ParseException {
+        return parseForStatement(true);
+    }
+
+    private Ast.Stmt.For parseForStatement(boolean parallel) throws ParseException {
         if (match(Token.Type.IDENTIFIER, "IN")) {
             String name = tokens.get(-2).getLiteral();
             Ast.Expr expression = parseExpression();
@@ -226,7 +259,7 @@ public final class Parser {
                     }
                     statements.add(parseStatement());
                 }
-                Ast.Stmt.For forStatement = new Ast.Stmt.For(name, expression, statements);
+                Ast.Stmt.For forStatement = new Ast.Stmt.For(name, expression, statements, parallel);
                 return forStatement;
             }
             else {
@@ -294,11 +327,10 @@ public final class Parser {
      */
     public Ast.Expr parseLogicalExpression() throws ParseException {
         Ast.Expr expression1 = parseEqualityExpression();
-        if(match("AND") || match("OR")) {
+        while(match("AND") || match("OR")) {
             String name = tokens.get(-1).getLiteral();
-            Ast.Expr expression2 = parseLogicalExpression();
-            Ast.Expr.Binary binary = new Ast.Expr.Binary(name, expression1, expression2);
-            return binary;
+            Ast.Expr expression2 = parseEqualityExpression();
+            expression1 = new Ast.Expr.Binary(name, expression1, expression2);
         }
         return expression1;
     }
@@ -308,11 +340,10 @@ public final class Parser {
      */
     public Ast.Expr parseEqualityExpression() throws ParseException {
         Ast.Expr expression1 = parseAdditiveExpression();
-        if(match("<") || match("<=")|| match(">")|| match(">=")|| match("==")|| match("!=")) {
+        while(match("<") || match("<=")|| match(">")|| match(">=")|| match("==")|| match("!=")) {
             String name = tokens.get(-1).getLiteral();
-            Ast.Expr expression2 = parseEqualityExpression();
-            Ast.Expr.Binary binary = new Ast.Expr.Binary(name, expression1, expression2);
-            return binary;
+            Ast.Expr expression2 = parseAdditiveExpression();
+            expression1 = new Ast.Expr.Binary(name, expression1, expression2);
         }
         return expression1;
     }
@@ -322,11 +353,10 @@ public final class Parser {
      */
     public Ast.Expr parseAdditiveExpression() throws ParseException {
         Ast.Expr expression1 = parseMultiplicativeExpression();
-        if(match("+") || match("-")) {
+        while(match("+") || match("-")) {
             String name = tokens.get(-1).getLiteral();
-            Ast.Expr expression2 = parseAdditiveExpression();
-            Ast.Expr.Binary binary = new Ast.Expr.Binary(name, expression1, expression2);
-            return binary;
+            Ast.Expr expression2 = parseMultiplicativeExpression();
+            expression1 = new Ast.Expr.Binary(name, expression1, expression2);
         }
         return expression1;
     }
@@ -336,11 +366,10 @@ public final class Parser {
      */
     public Ast.Expr parseMultiplicativeExpression() throws ParseException {
         Ast.Expr expression1 = parseSecondaryExpression();
-        if(match("*") || match("/")) {
+        while(match("*") || match("/")) {
             String name = tokens.get(-1).getLiteral();
-            Ast.Expr expression2 = parseMultiplicativeExpression();
-            Ast.Expr.Binary binary = new Ast.Expr.Binary(name, expression1, expression2);
-            return binary;
+            Ast.Expr expression2 = parseSecondaryExpression();
+            expression1 = new Ast.Expr.Binary(name, expression1, expression2);
         }
         return expression1;
     }
@@ -0,0 +1,146 @@
+package plc.project;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * A growable list value backing the {@code list} builtins. While every
+ * element is an integer that fits in a {@code long}, elements are stored
+ * unboxed in a {@code long[]} and only boxed as they are read. Storing any
+ * other value switches the list to a {@code PlcObject[]} for good.
+ */
+public final class PlcList implements Iterable<Environment.PlcObject> {
+
+    private static final int INITIAL_CAPACITY = 8;
+
+    private long[] longs = new long[INITIAL_CAPACITY];
+    private Environment.PlcObject[] objects = null;
+    private int size = 0;
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns whether the elements are stored unboxed.
+     */
+    public boolean isSpecialized() {
+        return longs != null;
+    }
+
+    public void add(Environment.PlcObject value) {
+        if (longs != null) {
+            if (size == longs.length) {
+                longs = Arrays.copyOf(longs, size * 2);
+            }
+            if (isLong(value)) {
+                longs[size++] = ((BigInteger) value.getValue()).longValue();
+                return;
+            }
+            generalize();
+        }
+        if (size == objects.length) {
+            objects = Arrays.copyOf(objects, size * 2);
+        }
+        objects[size++] = value;
+    }
+
+    public Environment.PlcObject get(int index) {
+        checkIndex(index);
+        return longs != null ? Environment.create(BigInteger.valueOf(longs[index])) : objects[index];
+    }
+
+    public void set(int index, Environment.PlcObject value) {
+        checkIndex(index);
+        if (longs != null) {
+            if (isLong(value)) {
+                longs[index] = ((BigInteger) value.getValue()).longValue();
+                return;
+            }
+            generalize();
+        }
+        objects[index] = value;
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new RuntimeException("The index " + index + " is out of bounds for length " + size + ".");
+        }
+    }
+
+    private static boolean isLong(Environment.PlcObject value) {
+        return value.getValue() instanceof BigInteger && ((BigInteger) value.getValue()).bitLength() < 64;
+    }
+
+    private void generalize() {
+        objects = new Environment.PlcObject[longs.length];
+        for (int i = 0; i < size; i++) {
+            objects[i] = Environment.create(BigInteger.valueOf(longs[i]));
+        }
+        longs = null;
+    }
+
+    @Override
+    public Iterator<Environment.PlcObject> iterator() {
+        return new Iterator<Environment.PlcObject>() {
+
+            private int index = 0;
+
+            @Override
+            public boolean hasNext() {
+                return index < size;
+            }
+
+            @Override
+            public Environment.PlcObject next() {
+                if (index >= size) {
+                    throw new NoSuchElementException();
+                }
+                return get(index++);
+            }
+
+        };
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (!(obj instanceof PlcList) || ((PlcList) obj).size != size) {
+            return false;
+        }
+        PlcList other = (PlcList) obj;
+        for (int i = 0; i < size; i++) {
+            if (longs != null && other.longs != null) {
+                if (longs[i] != other.longs[i]) {
+                    return false;
+                }
+            } else if (!get(i).getValue().equals(other.get(i).getValue())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = 1;
+        for (int i = 0; i < size; i++) {
+            hash = 31 * hash + get(i).getValue().hashCode();
+        }
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("[");
+        for (int i = 0; i < size; i++) {
+            if (i > 0) {
+                builder.append(", ");
+            }
+            builder.append(longs != null ? Long.toString(longs[i]) : String.valueOf(objects[i].getValue()));
+        }
+        return builder.append(']').toString();
+    }
+
+}
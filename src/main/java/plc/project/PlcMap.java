@@ -0,0 +1,192 @@
+package plc.project;
+
+import java.math.BigInteger;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * A hash map value backing the {@code map} builtins, keyed by integers that
+ * fit in a {@code long} or by strings. Each kind of key has its own
+ * open-addressing table with linear probing: integer keys are stored
+ * unboxed in a {@code long[]}, and string keys are compared by identity
+ * before equality. Iterating a map yields its keys, integers first.
+ */
+public final class PlcMap implements Iterable<Environment.PlcObject> {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private long[] longKeys = new long[INITIAL_CAPACITY];
+    private Environment.PlcObject[] longValues = new Environment.PlcObject[INITIAL_CAPACITY];
+    private int longSize = 0;
+
+    private String[] stringKeys = new String[INITIAL_CAPACITY];
+    private Environment.PlcObject[] stringValues = new Environment.PlcObject[INITIAL_CAPACITY];
+    private int stringSize = 0;
+
+    public int size() {
+        return longSize + stringSize;
+    }
+
+    /**
+     * Returns the value for the key, or {@link Environment#NIL} if the map
+     * does not contain it.
+     */
+    public Environment.PlcObject get(Environment.PlcObject key) {
+        Object value = key.getValue();
+        Environment.PlcObject result;
+        if (isLong(value)) {
+            long k = ((BigInteger) value).longValue();
+            result = longValues[find(longKeys, longValues, k)];
+        } else if (value instanceof String) {
+            result = stringValues[find(stringKeys, (String) value)];
+        } else {
+            throw unsupported(value);
+        }
+        return result != null ? result : Environment.NIL;
+    }
+
+    public void put(Environment.PlcObject key, Environment.PlcObject value) {
+        Object k = key.getValue();
+        if (isLong(k)) {
+            long l = ((BigInteger) k).longValue();
+            int slot = find(longKeys, longValues, l);
+            if (longValues[slot] == null) {
+                longKeys[slot] = l;
+                if (++longSize * 3 > longKeys.length * 2) {
+                    longValues[slot] = value;
+                    resizeLongs();
+                    return;
+                }
+            }
+            longValues[slot] = value;
+        } else if (k instanceof String) {
+            int slot = find(stringKeys, (String) k);
+            if (stringValues[slot] == null) {
+                stringKeys[slot] = (String) k;
+                if (++stringSize * 3 > stringKeys.length * 2) {
+                    stringValues[slot] = value;
+                    resizeStrings();
+                    return;
+                }
+            }
+            stringValues[slot] = value;
+        } else {
+            throw unsupported(k);
+        }
+    }
+
+    private static boolean isLong(Object value) {
+        return value instanceof BigInteger && ((BigInteger) value).bitLength() < 64;
+    }
+
+    private static RuntimeException unsupported(Object key) {
+        return new RuntimeException("Expected an integer or string key, received " + key.getClass().getName() + ".");
+    }
+
+    /**
+     * Returns the slot holding the key, or the empty slot where it belongs.
+     * Slots are empty when their value is {@code null}.
+     */
+    private static int find(long[] keys, Environment.PlcObject[] values, long key) {
+        int mask = keys.length - 1;
+        int slot = (int) ((key * 0x9E3779B97F4A7C15L) >>> 32) & mask;
+        while (values[slot] != null && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private static int find(String[] keys, String key) {
+        int mask = keys.length - 1;
+        int hash = key.hashCode();
+        int slot = (hash ^ (hash >>> 16)) & mask;
+        while (keys[slot] != null && keys[slot] != key && !keys[slot].equals(key)) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void resizeLongs() {
+        long[] keys = longKeys;
+        Environment.PlcObject[] values = longValues;
+        longKeys = new long[keys.length * 2];
+        longValues = new Environment.PlcObject[keys.length * 2];
+        for (int i = 0; i < keys.length; i++) {
+            if (values[i] != null) {
+                int slot = find(longKeys, longValues, keys[i]);
+                longKeys[slot] = keys[i];
+                longValues[slot] = values[i];
+            }
+        }
+    }
+
+    private void resizeStrings() {
+        String[] keys = stringKeys;
+        Environment.PlcObject[] values = stringValues;
+        stringKeys = new String[keys.length * 2];
+        stringValues = new Environment.PlcObject[keys.length * 2];
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != null) {
+                int slot = find(stringKeys, keys[i]);
+                stringKeys[slot] = keys[i];
+                stringValues[slot] = values[i];
+            }
+        }
+    }
+
+    @Override
+    public Iterator<Environment.PlcObject> iterator() {
+        return new Iterator<Environment.PlcObject>() {
+
+            private int longSlot = advanceLong(0);
+            private int stringSlot = advanceString(0);
+
+            private int advanceLong(int slot) {
+                while (slot < longValues.length && longValues[slot] == null) {
+                    slot++;
+                }
+                return slot;
+            }
+
+            private int advanceString(int slot) {
+                while (slot < stringKeys.length && stringKeys[slot] == null) {
+                    slot++;
+                }
+                return slot;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return longSlot < longValues.length || stringSlot < stringKeys.length;
+            }
+
+            @Override
+            public Environment.PlcObject next() {
+                if (longSlot < longValues.length) {
+                    Environment.PlcObject key = Environment.create(BigInteger.valueOf(longKeys[longSlot]));
+                    longSlot = advanceLong(longSlot + 1);
+                    return key;
+                } else if (stringSlot < stringKeys.length) {
+                    Environment.PlcObject key = Environment.create(stringKeys[stringSlot]);
+                    stringSlot = advanceString(stringSlot + 1);
+                    return key;
+                }
+                throw new NoSuchElementException();
+            }
+
+        };
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("{");
+        for (Environment.PlcObject key : this) {
+            if (builder.length() > 1) {
+                builder.append(", ");
+            }
+            builder.append(key.getValue()).append('=').append(get(key).getValue());
+        }
+        return builder.append('}').toString();
+    }
+
+}
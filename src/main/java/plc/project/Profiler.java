@@ -0,0 +1,232 @@
+package plc.project;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Records invocation counts and inclusive and exclusive time for each method
+ * and statement an {@link Interpreter} executes, see
+ * {@link Interpreter#setProfiler(Profiler)}. Nodes are labelled with their
+ * source offsets ({@link Ast#getOffset()}), or with line and column numbers
+ * when the profiler is given the source text.
+ *
+ * Inclusive time counts only the outermost active invocation of a node, so
+ * recursion is not counted twice. Exclusive time is also recorded per call
+ * path, which {@link #writeCollapsed(Appendable)} writes in the collapsed
+ * stack format read by flame graph tools.
+ *
+ * Profilers are not thread-safe; the bodies of {@code PARALLEL FOR} loops
+ * run on other interpreters and are not profiled.
+ */
+public final class Profiler {
+
+    private final String source;
+    private final Map<Ast, Entry> entries = new IdentityHashMap<>();
+    private final Path root = new Path(null);
+    private Frame top = null;
+
+    public Profiler() {
+        this(null);
+    }
+
+    /**
+     * Creates a profiler that reports the line and column of nodes in the
+     * given source instead of their offsets.
+     */
+    public Profiler(String source) {
+        this.source = source;
+    }
+
+    /**
+     * Starts timing the given method or statement, which must be matched by
+     * a call to {@link #exit()}.
+     */
+    void enter(Ast node) {
+        Entry entry = entries.get(node);
+        if (entry == null) {
+            entry = new Entry(label(node, source));
+            entries.put(node, entry);
+        }
+        Path parent = top != null ? top.path : root;
+        Path path = parent.children.get(node);
+        if (path == null) {
+            path = new Path(entry.label);
+            parent.children.put(node, path);
+        }
+        entry.calls++;
+        entry.active++;
+        top = new Frame(top, entry, path, System.nanoTime());
+    }
+
+    void exit() {
+        Frame frame = top;
+        long elapsed = System.nanoTime() - frame.start;
+        top = frame.parent;
+        if (top != null) {
+            top.children += elapsed;
+        }
+        Entry entry = frame.entry;
+        if (--entry.active == 0) {
+            entry.inclusive += elapsed;
+        }
+        entry.exclusive += elapsed - frame.children;
+        frame.path.exclusive += elapsed - frame.children;
+    }
+
+    /**
+     * Returns the profiled nodes, sorted by decreasing exclusive time.
+     */
+    public List<Entry> getEntries() {
+        List<Entry> list = new ArrayList<>(entries.values());
+        list.sort((a, b) -> Long.compare(b.exclusive, a.exclusive));
+        return list;
+    }
+
+    /**
+     * Returns a table of the {@code limit} nodes with the most exclusive time.
+     */
+    public String report(int limit) {
+        StringBuilder builder = new StringBuilder();
+        builder.append(String.format(Locale.ROOT, "%12s %14s %14s  %s%n", "calls", "inclusive ms", "exclusive ms", "node"));
+        List<Entry> list = getEntries();
+        for (Entry entry : list.subList(0, Math.min(limit, list.size()))) {
+            builder.append(String.format(Locale.ROOT, "%12d %14.3f %14.3f  %s%n", entry.calls, entry.inclusive / 1e6, entry.exclusive / 1e6, entry.label));
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Writes one line per call path, of the form {@code main/0;fib/1;If 2:5 1234},
+     * with the exclusive time of the path in nanoseconds.
+     */
+    public void writeCollapsed(Appendable output) throws IOException {
+        writeCollapsed(output, root, new StringBuilder());
+    }
+
+    private static void writeCollapsed(Appendable output, Path path, StringBuilder prefix) throws IOException {
+        int length = prefix.length();
+        if (path.label != null) {
+            if (length > 0) {
+                prefix.append(';');
+            }
+            prefix.append(path.label);
+            if (path.exclusive > 0) {
+                output.append(prefix).append(' ').append(String.valueOf(path.exclusive)).append('\n');
+            }
+        }
+        for (Path child : path.children.values()) {
+            writeCollapsed(output, child, prefix);
+        }
+        prefix.setLength(length);
+    }
+
+    /**
+     * Returns the label of a method ({@code name/arity}) or statement (its
+     * type and position), using line and column numbers if the source is
+     * known and offsets otherwise.
+     */
+    static String label(Ast node, String source) {
+        if (node instanceof Ast.Method) {
+            Ast.Method method = (Ast.Method) node;
+            return method.getName() + "/" + method.getParameters().size();
+        }
+        return node.getClass().getSimpleName() + " " + position(node.getOffset(), source);
+    }
+
+    private static String position(int offset, String source) {
+        if (offset < 0) {
+            return "?";
+        } else if (source == null || offset > source.length()) {
+            return "@" + offset;
+        }
+        int line = 1;
+        int start = 0;
+        for (int i = 0; i < offset; i++) {
+            if (source.charAt(i) == '\n') {
+                line++;
+                start = i + 1;
+            }
+        }
+        return line + ":" + (offset - start + 1);
+    }
+
+    /**
+     * The counters of a single method or statement.
+     */
+    public static final class Entry {
+
+        private final String label;
+        private long calls;
+        private long inclusive;
+        private long exclusive;
+        private int active;
+
+        private Entry(String label) {
+            this.label = label;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+
+        public long getCalls() {
+            return calls;
+        }
+
+        public long getInclusiveNanos() {
+            return inclusive;
+        }
+
+        public long getExclusiveNanos() {
+            return exclusive;
+        }
+
+        @Override
+        public String toString() {
+            return "Entry{" +
+                    "label='" + label + '\'' +
+                    ", calls=" + calls +
+                    ", inclusive=" + inclusive +
+                    ", exclusive=" + exclusive +
+                    '}';
+        }
+
+    }
+
+    /**
+     * A node of the call path tree, keyed by AST node identity.
+     */
+    private static final class Path {
+
+        private final String label;
+        private final Map<Ast, Path> children = new IdentityHashMap<>();
+        private long exclusive;
+
+        private Path(String label) {
+            this.label = label;
+        }
+
+    }
+
+    private static final class Frame {
+
+        private final Frame parent;
+        private final Entry entry;
+        private final Path path;
+        private final long start;
+        private long children;
+
+        private Frame(Frame parent, Entry entry, Path path, long start) {
+            this.parent = parent;
+            this.entry = entry;
+            this.path = path;
+            this.start = start;
+        }
+
+    }
+
+}
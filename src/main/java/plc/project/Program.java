@@ -0,0 +1,90 @@
+package plc.project;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A parsed source together with the results of analyzing it once up front.
+ * A program is immutable after construction, so one instance can be shared
+ * and {@link #execute(Scope) executed} by any number of threads at once.
+ * Everything that changes while a program runs (the current scope, frames,
+ * fields, return values and inline caches) belongs to the {@link Interpreter}
+ * created for each execution.
+ */
+public final class Program {
+
+    private final Ast.Source source;
+    private final Map<List<Ast.Stmt>, Boolean> blockDeclarations;
+
+    public Program(Ast.Source source) {
+        this.source = source;
+        Map<List<Ast.Stmt>, Boolean> blockDeclarations = new IdentityHashMap<>();
+        for (Ast.Method method : source.getMethods()) {
+            analyze(method.getStatements(), blockDeclarations);
+        }
+        this.blockDeclarations = Collections.unmodifiableMap(blockDeclarations);
+    }
+
+    public Ast.Source getSource() {
+        return source;
+    }
+
+    /**
+     * Executes the program with the given scope as the parent of its global
+     * scope, returning the result of {@code main}. The scope may be shared
+     * with other executions only if nothing modifies it while they run.
+     */
+    public Environment.PlcObject execute(Scope parent) {
+        return new Interpreter(parent, this).visit(source);
+    }
+
+    /**
+     * Executes the program like {@link #execute(Scope)}, with {@code print}
+     * writing to the given sink.
+     */
+    public Environment.PlcObject execute(Scope parent, OutputSink output) {
+        Interpreter interpreter = new Interpreter(parent, this);
+        interpreter.setOutputSink(output);
+        return interpreter.visit(source);
+    }
+
+    /**
+     * Returns whether the block directly contains a declaration, or
+     * {@code null} if the block is not part of this program.
+     */
+    Boolean declares(List<Ast.Stmt> statements) {
+        return blockDeclarations.get(statements);
+    }
+
+    private static void analyze(List<Ast.Stmt> statements, Map<List<Ast.Stmt>, Boolean> blockDeclarations) {
+        blockDeclarations.put(statements, containsDeclaration(statements));
+        for (Ast.Stmt stmt : statements) {
+            if (stmt instanceof Ast.Stmt.If) {
+                analyze(((Ast.Stmt.If) stmt).getThenStatements(), blockDeclarations);
+                analyze(((Ast.Stmt.If) stmt).getElseStatements(), blockDeclarations);
+            } else if (stmt instanceof Ast.Stmt.For) {
+                analyze(((Ast.Stmt.For) stmt).getStatements(), blockDeclarations);
+            } else if (stmt instanceof Ast.Stmt.While) {
+                analyze(((Ast.Stmt.While) stmt).getStatements(), blockDeclarations);
+            }
+        }
+    }
+
+    /**
+     * Returns whether the block directly contains a declaration and therefore
+     * needs its own scope. Nested blocks are analyzed separately. Only
+     * {@code LET} defines variables (assigning an undefined variable throws),
+     * so a block without one cannot leak definitions into the enclosing scope.
+     */
+    static boolean containsDeclaration(List<Ast.Stmt> statements) {
+        for (Ast.Stmt stmt : statements) {
+            if (stmt instanceof Ast.Stmt.Declaration) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+}
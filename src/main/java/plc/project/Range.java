@@ -0,0 +1,121 @@
+package plc.project;
+
+import java.math.BigInteger;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * A lazy arithmetic progression from {@code start} (inclusive) to
+ * {@code end} (exclusive), backing the {@code range} builtin. Elements are
+ * created on demand, so iterating uses constant memory regardless of the
+ * length. Ranges whose bounds fit in a {@code long} count with primitive
+ * arithmetic and only box each element as it is produced.
+ */
+public final class Range implements Iterable<Environment.PlcObject> {
+
+    private static final BigInteger LONG_MIN = BigInteger.valueOf(Long.MIN_VALUE);
+    private static final BigInteger LONG_MAX = BigInteger.valueOf(Long.MAX_VALUE);
+
+    private final BigInteger start;
+    private final BigInteger end;
+    private final BigInteger step;
+
+    public Range(BigInteger start, BigInteger end, BigInteger step) {
+        if (step.signum() == 0) {
+            throw new RuntimeException("The step of a range cannot be zero.");
+        }
+        this.start = start;
+        this.end = end;
+        this.step = step;
+    }
+
+    public BigInteger getStart() {
+        return start;
+    }
+
+    public BigInteger getEnd() {
+        return end;
+    }
+
+    public BigInteger getStep() {
+        return step;
+    }
+
+    @Override
+    public Iterator<Environment.PlcObject> iterator() {
+        if (fitsLong(start) && fitsLong(end) && fitsLong(step)) {
+            return new LongIterator(start.longValue(), end.longValue(), step.longValue());
+        }
+        return new BigIterator();
+    }
+
+    private static boolean fitsLong(BigInteger value) {
+        return value.compareTo(LONG_MIN) >= 0 && value.compareTo(LONG_MAX) <= 0;
+    }
+
+    @Override
+    public String toString() {
+        return "Range{" +
+                "start=" + start +
+                ", end=" + end +
+                ", step=" + step +
+                '}';
+    }
+
+    private static final class LongIterator implements Iterator<Environment.PlcObject> {
+
+        private final long end;
+        private final long step;
+        private long next;
+        private boolean done;
+
+        private LongIterator(long start, long end, long step) {
+            this.end = end;
+            this.step = step;
+            this.next = start;
+            this.done = step > 0 ? start >= end : start <= end;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !done;
+        }
+
+        @Override
+        public Environment.PlcObject next() {
+            if (done) {
+                throw new NoSuchElementException();
+            }
+            long current = next;
+            next = current + step;
+            // Overflow can only happen after passing end, since end fits too.
+            if (step > 0 ? next >= end || next < current : next <= end || next > current) {
+                done = true;
+            }
+            return Environment.create(BigInteger.valueOf(current));
+        }
+
+    }
+
+    private final class BigIterator implements Iterator<Environment.PlcObject> {
+
+        private BigInteger next = start;
+
+        @Override
+        public boolean hasNext() {
+            return step.signum() > 0 ? next.compareTo(end) < 0 : next.compareTo(end) > 0;
+        }
+
+        @Override
+        public Environment.PlcObject next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            BigInteger current = next;
+            next = current.add(step);
+            return Environment.create(current);
+        }
+
+    }
+
+}
@@ -0,0 +1,93 @@
+package plc.project;
+
+/**
+ * A string value built by repeated {@code +}, which appends to a shared
+ * buffer instead of copying both operands. A rope is a prefix of its buffer:
+ * concatenating onto the rope that ends at the end of the buffer (the usual
+ * case, {@code s = s + x} in a loop) appends in place, while concatenating
+ * onto an older prefix copies it into a new buffer. Repeated concatenation is
+ * therefore amortized O(1) per appended character.
+ *
+ * Ropes never escape the interpreter: {@link Environment.PlcObject#getValue()}
+ * flattens them into a {@link String} the first time the value is observed,
+ * such as when it is printed, compared or passed to a host function.
+ */
+final class Rope implements CharSequence {
+
+    /**
+     * Results shorter than this are plain strings, since copying them is
+     * cheaper than maintaining a buffer.
+     */
+    private static final int MIN_LENGTH = 64;
+
+    private final StringBuilder buffer;
+    private final int length;
+
+    private Rope(StringBuilder buffer, int length) {
+        this.buffer = buffer;
+        this.length = length;
+    }
+
+    /**
+     * Returns the concatenation of the two strings or ropes, as a rope unless
+     * it is short.
+     */
+    static Object concat(CharSequence left, CharSequence right) {
+        int length = left.length() + right.length();
+        if (length < MIN_LENGTH) {
+            return left.toString().concat(right.toString());
+        }
+        if (left instanceof Rope) {
+            Rope rope = (Rope) left;
+            synchronized (rope.buffer) {
+                if (rope.buffer.length() == rope.length) {
+                    append(rope.buffer, right);
+                    return new Rope(rope.buffer, length);
+                }
+            }
+        }
+        StringBuilder buffer = new StringBuilder(Math.max(length * 2, 256));
+        append(buffer, left);
+        append(buffer, right);
+        return new Rope(buffer, length);
+    }
+
+    private static void append(StringBuilder buffer, CharSequence value) {
+        if (value instanceof Rope) {
+            Rope rope = (Rope) value;
+            synchronized (rope.buffer) {
+                buffer.append(rope.buffer, 0, rope.length);
+            }
+        } else {
+            buffer.append(value);
+        }
+    }
+
+    @Override
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public char charAt(int index) {
+        if (index < 0 || index >= length) {
+            throw new StringIndexOutOfBoundsException(index);
+        }
+        synchronized (buffer) {
+            return buffer.charAt(index);
+        }
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        return toString().subSequence(start, end);
+    }
+
+    @Override
+    public String toString() {
+        synchronized (buffer) {
+            return buffer.substring(0, length);
+        }
+    }
+
+}
@@ -0,0 +1,186 @@
+package plc.project;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Samples the methods and statements of attached interpreters at a fixed
+ * interval from a background thread. Each attached {@link Interpreter}
+ * maintains a {@link ShadowStack}, which the sampler reads without stopping
+ * the interpreter thread, so the cost to the interpreter is a few stores per
+ * method call and statement regardless of the sampling rate. This distorts
+ * hot loops far less than {@link Profiler}, at the price of statistical
+ * rather than exact results.
+ *
+ * Samples are aggregated by call path for {@link #writeCollapsed(Appendable)}
+ * and by node for {@link #report(int)}: a node's self samples are those in
+ * which it was the innermost frame, and its total samples those in which it
+ * appeared at all. As with {@link Profiler}, the bodies of {@code PARALLEL FOR}
+ * loops are not sampled.
+ */
+public final class SamplingProfiler implements AutoCloseable {
+
+    private final long interval;
+    private final String source;
+    private final List<Attachment> attachments = new CopyOnWriteArrayList<>();
+    private final Thread thread;
+    private volatile boolean closed = false;
+
+    private final Map<Ast, String> labels = new IdentityHashMap<>();
+    private final Map<String, long[]> paths = new LinkedHashMap<>();
+    private final Map<String, long[]> nodes = new HashMap<>();
+    private long samples = 0;
+
+    /**
+     * Starts sampling every {@code interval}; nodes are labelled using the
+     * source if it is not {@code null}, see {@link Profiler#label}.
+     */
+    public SamplingProfiler(Duration interval, String source) {
+        this.interval = interval.toNanos();
+        this.source = source;
+        thread = new Thread(this::sample, "plc-sampler");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    public SamplingProfiler(Duration interval) {
+        this(interval, null);
+    }
+
+    /**
+     * Starts sampling the given interpreter, which must not be attached to
+     * another sampling profiler.
+     */
+    public void attach(Interpreter interpreter) {
+        ShadowStack stack = new ShadowStack();
+        interpreter.setShadowStack(stack);
+        attachments.add(new Attachment(interpreter, stack));
+    }
+
+    public void detach(Interpreter interpreter) {
+        for (Attachment attachment : attachments) {
+            if (attachment.interpreter == interpreter) {
+                interpreter.setShadowStack(null);
+                attachments.remove(attachment);
+            }
+        }
+    }
+
+    /**
+     * Returns the number of samples taken, counting one per busy attached
+     * interpreter each interval.
+     */
+    public synchronized long getSamples() {
+        return samples;
+    }
+
+    /**
+     * Returns a table of the {@code limit} nodes with the most self samples.
+     */
+    public synchronized String report(int limit) {
+        List<Map.Entry<String, long[]>> entries = new ArrayList<>(nodes.entrySet());
+        entries.sort((a, b) -> a.getValue()[0] != b.getValue()[0]
+                ? Long.compare(b.getValue()[0], a.getValue()[0])
+                : Long.compare(b.getValue()[1], a.getValue()[1]));
+        StringBuilder builder = new StringBuilder();
+        builder.append(String.format(Locale.ROOT, "%d samples%n", samples));
+        builder.append(String.format(Locale.ROOT, "%10s %8s %10s %8s  %s%n", "self", "self %", "total", "total %", "node"));
+        for (Map.Entry<String, long[]> entry : entries.subList(0, Math.min(limit, entries.size()))) {
+            long self = entry.getValue()[0];
+            long total = entry.getValue()[1];
+            builder.append(String.format(Locale.ROOT, "%10d %7.1f%% %10d %7.1f%%  %s%n",
+                    self, 100.0 * self / samples, total, 100.0 * total / samples, entry.getKey()));
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Writes one line per sampled call path with its sample count, in the
+     * collapsed stack format read by flame graph tools.
+     */
+    public synchronized void writeCollapsed(Appendable output) throws IOException {
+        for (Map.Entry<String, long[]> entry : paths.entrySet()) {
+            output.append(entry.getKey()).append(' ').append(String.valueOf(entry.getValue()[0])).append('\n');
+        }
+    }
+
+    /**
+     * Stops sampling and detaches every interpreter; the samples taken so far
+     * remain available.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        LockSupport.unpark(thread);
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        for (Attachment attachment : attachments) {
+            detach(attachment.interpreter);
+        }
+    }
+
+    private void sample() {
+        long next = System.nanoTime() + interval;
+        while (!closed) {
+            LockSupport.parkNanos(next - System.nanoTime());
+            if (System.nanoTime() < next) {
+                continue;
+            }
+            next += interval;
+            for (Attachment attachment : attachments) {
+                List<Ast> frames = attachment.stack.snapshot();
+                if (!frames.isEmpty()) {
+                    record(frames);
+                }
+            }
+        }
+    }
+
+    private synchronized void record(List<Ast> frames) {
+        samples++;
+        StringBuilder path = new StringBuilder();
+        Set<String> seen = new HashSet<>();
+        for (int i = 0; i < frames.size(); i++) {
+            String label = labels.computeIfAbsent(frames.get(i), node -> Profiler.label(node, source));
+            if (i > 0) {
+                path.append(';');
+            }
+            path.append(label);
+            long[] counts = nodes.computeIfAbsent(label, l -> new long[2]);
+            if (i == frames.size() - 1) {
+                counts[0]++;
+            }
+            if (seen.add(label)) {
+                counts[1]++;
+            }
+        }
+        paths.computeIfAbsent(path.toString(), p -> new long[1])[0]++;
+    }
+
+    private static final class Attachment {
+
+        private final Interpreter interpreter;
+        private final ShadowStack stack;
+
+        private Attachment(Interpreter interpreter, ShadowStack stack) {
+            this.interpreter = interpreter;
+            this.stack = stack;
+        }
+
+    }
+
+}
@@ -1,15 +1,29 @@
 package plc.project;
 
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
 
 public final class Scope {
 
-    private final Scope parent;
-    private final Map<String, Environment.Variable> variables = new HashMap<>();
-    private final Map<String, Environment.Function> functions = new HashMap<>();
+    /**
+     * Incremented when a function is defined in a scope that an inline cache
+     * has already looked through. Such definitions may change the result of a cached lookup, so
+     * caches revalidate against this value (see {@link #getVersion()}).
+     * Definitions in scopes no cache depends on, such as those made while
+     * setting up a new interpreter, leave it unchanged.
+     */
+    private static final AtomicInteger EPOCH = new AtomicInteger();
+
+    private Scope parent;
+    private Map<String, Environment.Variable> variables;
+    private Map<Symbol, Environment.Function[]> functions;
+    private boolean observed = false;
+    private int generation = 0;
 
     public Scope(Scope parent) {
         this.parent = parent;
@@ -20,6 +34,9 @@ public final class Scope {
     }
 
     public void defineVariable(String name, Environment.PlcObject value) {
+        if (variables == null) {
+            variables = new HashMap<>();
+        }
         if (variables.containsKey(name)) {
             throw new RuntimeException("The variable " + name + " is already defined in this scope.");
         } else {
@@ -28,39 +45,222 @@ public final class Scope {
     }
 
     public Environment.Variable lookupVariable(String name) {
-        if (variables.containsKey(name)) {
-            return variables.get(name);
-        } else if (parent != null) {
-            return parent.lookupVariable(name);
-        } else {
+        Environment.Variable variable = findVariable(name);
+        if (variable == null) {
             throw new RuntimeException("The variable " + name + " is not defined in this scope.");
         }
+        return variable;
+    }
+
+    /**
+     * Returns the variable with the given name in this scope or an enclosing
+     * one, or {@code null} if it is not defined.
+     */
+    public Environment.Variable findVariable(String name) {
+        for (Scope scope = this; scope != null; scope = scope.parent) {
+            if (scope.variables != null) {
+                Environment.Variable variable = scope.variables.get(name);
+                if (variable != null) {
+                    return variable;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the scope in this chain that defines the given variable, or
+     * {@code null} if it is not defined.
+     */
+    Scope findVariableScope(String name) {
+        for (Scope scope = this; scope != null; scope = scope.parent) {
+            if (scope.variables != null && scope.variables.containsKey(name)) {
+                return scope;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Removes all variables defined in this scope so that it can be reused,
+     * for example by the next iteration of a loop body. This changes the
+     * scope's {@link #getVersion() version}, but not the global epoch, since
+     * only lookups starting from this scope itself can be affected (scopes
+     * created below it do not outlive an iteration).
+     */
+    void clear() {
+        if (variables != null && !variables.isEmpty()) {
+            variables.clear();
+            generation++;
+        }
+    }
+
+    /**
+     * Clears this scope's variables and moves it under a new parent, so that
+     * a pooled interpreter's scopes can be reused with different bindings.
+     * Inline caches only remember function lookups, so the global epoch only
+     * changes if a cache has looked through this scope and the old or new
+     * parent chain defines functions; the new chain is then observed in turn,
+     * so later definitions in it invalidate caches as well.
+     */
+    void reset(Scope parent) {
+        if (variables != null) {
+            variables.clear();
+        }
+        if (parent == this.parent) {
+            return;
+        }
+        if (observed) {
+            if (definesFunctions(this.parent) || definesFunctions(parent)) {
+                EPOCH.incrementAndGet();
+            }
+            for (Scope scope = parent; scope != null && !scope.observed; scope = scope.parent) {
+                scope.observed = true;
+            }
+        }
+        this.parent = parent;
+    }
+
+    private static boolean definesFunctions(Scope scope) {
+        for (; scope != null; scope = scope.parent) {
+            if (scope.functions != null && !scope.functions.isEmpty()) {
+                return true;
+            }
+        }
+        return false;
     }
 
     public void defineFunction(String name, int arity, Function<List<Environment.PlcObject>, Environment.PlcObject> function) {
-        if (functions.containsKey(name + "/" + arity)) {
+        defineFunction(Symbol.of(name), arity, function);
+    }
+
+    public void defineFunction(Symbol name, int arity, Function<List<Environment.PlcObject>, Environment.PlcObject> function) {
+        defineFunction(name, new Environment.Function(name.getName(), arity, function));
+    }
+
+    public void defineFunction(Environment.Function function) {
+        defineFunction(Symbol.of(function.getName()), function);
+    }
+
+    private void defineFunction(Symbol name, Environment.Function function) {
+        int arity = function.getArity();
+        if (functions == null) {
+            functions = new HashMap<>();
+        }
+        Environment.Function[] overloads = functions.get(name);
+        if (overloads == null) {
+            overloads = new Environment.Function[arity + 1];
+        } else if (arity < overloads.length && overloads[arity] != null) {
             throw new RuntimeException("The function " + name + "/" + arity + " is already defined in this scope.");
-        } else {
-            functions.put(name + "/" + arity, new Environment.Function(name, arity, function));
+        } else if (arity >= overloads.length) {
+            overloads = Arrays.copyOf(overloads, arity + 1);
+        }
+        overloads[arity] = function;
+        functions.put(name, overloads);
+        if (observed) {
+            EPOCH.incrementAndGet();
+        }
+    }
+
+    /**
+     * Removes the function with the given name and arity from this scope, if
+     * it is defined here, such as the methods of a source an interpreter no
+     * longer runs.
+     */
+    void removeFunction(Symbol name, int arity) {
+        Environment.Function[] overloads = functions != null ? functions.get(name) : null;
+        if (overloads != null && arity < overloads.length && overloads[arity] != null) {
+            overloads[arity] = null;
+            if (observed) {
+                EPOCH.incrementAndGet();
+            }
         }
     }
 
     public Environment.Function lookupFunction(String name, int arity) {
-        if (functions.containsKey(name + "/" + arity)) {
-            return functions.get(name + "/" + arity);
-        } else if (parent != null) {
-            return parent.lookupFunction(name, arity);
-        } else {
+        return lookupFunction(Symbol.of(name), arity);
+    }
+
+    public Environment.Function lookupFunction(Symbol name, int arity) {
+        Environment.Function function = findFunction(name, arity);
+        if (function == null) {
             throw new RuntimeException("The function " + name + "/" + arity + " is not defined in this scope.");
         }
+        return function;
+    }
+
+    /**
+     * Returns the function with the given name and arity in this scope or an
+     * enclosing one, or {@code null} if it is not defined.
+     */
+    public Environment.Function findFunction(Symbol name, int arity) {
+        for (Scope scope = this; scope != null; scope = scope.parent) {
+            if (scope.functions != null) {
+                Environment.Function[] overloads = scope.functions.get(name);
+                if (overloads != null && arity < overloads.length && overloads[arity] != null) {
+                    return overloads[arity];
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the function like {@link #lookupFunction(Symbol, int)}, but
+     * marks the scopes consulted so later definitions in them invalidate
+     * inline caches.
+     */
+    Environment.Function resolveFunction(Symbol name, int arity) {
+        for (Scope scope = this; scope != null; scope = scope.parent) {
+            if (!scope.observed) {
+                scope.observed = true;
+            }
+            if (scope.functions != null) {
+                Environment.Function[] overloads = scope.functions.get(name);
+                if (overloads != null && arity < overloads.length && overloads[arity] != null) {
+                    return overloads[arity];
+                }
+            }
+        }
+        throw new RuntimeException("The function " + name + "/" + arity + " is not defined in this scope.");
+    }
+
+    /**
+     * Returns the nearest scope in this chain (including this scope) that has
+     * functions defined, or {@code null} if there is none. Lookups starting
+     * from any scope with the same function scope resolve identically as long
+     * as its {@link #getVersion() version} is unchanged.
+     */
+    Scope getFunctionScope() {
+        Scope scope = this;
+        while (scope != null && scope.functions == null) {
+            scope = scope.parent;
+        }
+        return scope;
+    }
+
+    Map<String, Environment.Variable> getVariables() {
+        return variables != null ? variables : Collections.emptyMap();
+    }
+
+    Map<Symbol, Environment.Function[]> getFunctions() {
+        return functions != null ? functions : Collections.emptyMap();
+    }
+
+    /**
+     * Returns the version inline caches key lookups from this scope by: the
+     * global epoch combined with the number of times this scope was cleared.
+     */
+    long getVersion() {
+        return ((long) EPOCH.get() << 32) | (generation & 0xFFFFFFFFL);
     }
 
     @Override
     public String toString() {
         return "Scope{" +
                 "parent=" + parent +
-                ", variables=" + variables +
-                ", functions=" + functions +
+                ", variables=" + getVariables() +
+                ", functions=" + getFunctions() +
                 '}';
     }
 
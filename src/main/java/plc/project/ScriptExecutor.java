@@ -0,0 +1,176 @@
+package plc.project;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs {@link Program}s asynchronously, one thread per job. On runtimes with
+ * virtual threads each job gets its own virtual thread, so jobs blocked in
+ * host functions are cheap. Older runtimes fall back to a fixed pool of
+ * {@code maxConcurrency} platform threads.
+ *
+ * At most {@code maxConcurrency} jobs execute at once, and the rest wait in
+ * submission order. Each job has a timeout measured from submission. When a
+ * job times out or its future is cancelled, its {@link Interpreter} is
+ * {@link Interpreter#cancel() cancelled} and stops at the next loop
+ * iteration or method invocation.
+ */
+public final class ScriptExecutor implements AutoCloseable {
+
+    /**
+     * How long {@link #close()} waits for jobs to stop after cancelling them.
+     */
+    private static final Duration STOP_TIMEOUT = Duration.ofSeconds(5);
+
+    private final ExecutorService executor;
+    private final boolean virtual;
+    private final int maxConcurrency;
+    private final Semaphore permits;
+    private final Duration timeout;
+    private final Set<CompletableFuture<Environment.PlcObject>> pending = ConcurrentHashMap.newKeySet();
+    private volatile InterpreterMetrics metrics = null;
+
+    public ScriptExecutor(int maxConcurrency, Duration timeout) {
+        if (maxConcurrency <= 0) {
+            throw new IllegalArgumentException("The maximum concurrency must be positive.");
+        }
+        ExecutorService executor = newVirtualThreadExecutor();
+        this.virtual = executor != null;
+        AtomicInteger threads = new AtomicInteger();
+        this.executor = virtual ? executor : Executors.newFixedThreadPool(maxConcurrency, runnable -> {
+            Thread thread = new Thread(runnable, "script-executor-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.maxConcurrency = maxConcurrency;
+        this.permits = new Semaphore(maxConcurrency, true);
+        this.timeout = timeout;
+    }
+
+    /**
+     * Returns whether jobs run on virtual threads rather than the platform
+     * thread fallback.
+     */
+    public boolean isVirtual() {
+        return virtual;
+    }
+
+    /**
+     * Sets the metrics that jobs submitted from now on report to, or
+     * {@code null} to stop reporting.
+     */
+    public void setMetrics(InterpreterMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    public CompletableFuture<Environment.PlcObject> submit(Program program, Scope bindings) {
+        return submit(program, bindings, timeout);
+    }
+
+    /**
+     * Submits an execution of the program with the given bindings as the
+     * parent of its global scope. Bindings may be shared between jobs only if
+     * nothing modifies them while the jobs run.
+     */
+    public CompletableFuture<Environment.PlcObject> submit(Program program, Scope bindings, Duration timeout) {
+        return submit(program, bindings, null, timeout);
+    }
+
+    /**
+     * Submits an execution like {@link #submit(Program, Scope, Duration)},
+     * with {@code print} writing to the given sink, such as a per-job
+     * {@link OutputSink#capture() capture}, or to standard output if it is
+     * {@code null}.
+     */
+    public CompletableFuture<Environment.PlcObject> submit(Program program, Scope bindings, OutputSink output, Duration timeout) {
+        Interpreter interpreter = new Interpreter(bindings, program);
+        interpreter.setMetrics(metrics);
+        if (output != null) {
+            interpreter.setOutputSink(output);
+        }
+        CompletableFuture<Environment.PlcObject> future = new CompletableFuture<>();
+        pending.add(future);
+        future.whenComplete((result, error) -> {
+            pending.remove(future);
+            if (error != null) {
+                interpreter.cancel();
+            }
+        });
+        future.orTimeout(timeout.toNanos(), TimeUnit.NANOSECONDS);
+        try {
+            executor.execute(() -> run(future, interpreter, program));
+        } catch (RejectedExecutionException e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    private void run(CompletableFuture<Environment.PlcObject> future, Interpreter interpreter, Program program) {
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.completeExceptionally(e);
+            return;
+        }
+        try {
+            if (!future.isDone()) {
+                future.complete(interpreter.visit(program.getSource()));
+            }
+        } catch (Throwable e) {
+            future.completeExceptionally(e);
+        } finally {
+            permits.release();
+        }
+    }
+
+    /**
+     * Stops accepting jobs and waits up to the default timeout for submitted
+     * jobs to finish. Jobs still pending after that are cancelled, and if
+     * their threads have not stopped within a few seconds, for example
+     * because they are blocked in a host function, this throws rather than
+     * waiting for them.
+     */
+    @Override
+    public void close() {
+        executor.shutdown();
+        try {
+            if (executor.awaitTermination(timeout.toNanos(), TimeUnit.NANOSECONDS)) {
+                return;
+            }
+            for (CompletableFuture<Environment.PlcObject> future : pending) {
+                future.cancel(true);
+            }
+            executor.shutdownNow();
+            if (!executor.awaitTermination(STOP_TIMEOUT.toNanos(), TimeUnit.NANOSECONDS)) {
+                int running = maxConcurrency - permits.availablePermits();
+                throw new IllegalStateException("The script executor did not stop: " + running + " jobs were still running " + STOP_TIMEOUT.toSeconds() + " seconds after being cancelled.");
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Virtual threads only exist from Java 21, so the executor is looked up
+     * reflectively and the class still loads on older runtimes. Returns
+     * {@code null} if it is unavailable.
+     */
+    private static ExecutorService newVirtualThreadExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+
+}
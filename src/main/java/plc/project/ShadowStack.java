@@ -0,0 +1,84 @@
+package plc.project;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The methods an {@link Interpreter} is currently executing, each with the
+ * statement it is executing, kept so that a {@link SamplingProfiler} on
+ * another thread can read them without stopping the interpreter.
+ *
+ * Only the interpreter thread writes. The depth is published with release
+ * semantics and read with acquire semantics, so a reader sees every frame
+ * pushed before the depth it read; the statement of each frame is a plain
+ * field and may be slightly stale, which is harmless for sampling. Slot
+ * {@code 0} holds statements executed outside of any method, and is cleared
+ * again when the outermost block ends.
+ */
+final class ShadowStack {
+
+    private static final VarHandle DEPTH;
+
+    static {
+        try {
+            DEPTH = MethodHandles.lookup().findVarHandle(ShadowStack.class, "depth", int.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private Ast.Method[] methods = new Ast.Method[32];
+    private Ast.Stmt[] statements = new Ast.Stmt[32];
+    private int depth = 0;
+
+    void push(Ast.Method method) {
+        int next = depth + 1;
+        if (next == methods.length) {
+            methods = Arrays.copyOf(methods, next * 2);
+            statements = Arrays.copyOf(statements, next * 2);
+        }
+        methods[next] = method;
+        statements[next] = null;
+        DEPTH.setRelease(this, next);
+    }
+
+    void pop() {
+        DEPTH.setRelease(this, depth - 1);
+    }
+
+    /**
+     * Returns the statement of the innermost frame, or {@code null}.
+     */
+    Ast.Stmt statement() {
+        return statements[depth];
+    }
+
+    void statement(Ast.Stmt statement) {
+        statements[depth] = statement;
+    }
+
+    /**
+     * Returns the current frames from the outermost inwards, each method
+     * followed by its current statement (if any). Safe to call from any
+     * thread.
+     */
+    List<Ast> snapshot() {
+        int depth = (int) DEPTH.getAcquire(this);
+        Ast.Method[] methods = this.methods;
+        Ast.Stmt[] statements = this.statements;
+        List<Ast> frames = new ArrayList<>(2 * depth + 1);
+        for (int i = 0; i <= depth && i < methods.length; i++) {
+            if (methods[i] != null) {
+                frames.add(methods[i]);
+            }
+            if (statements[i] != null) {
+                frames.add(statements[i]);
+            }
+        }
+        return frames;
+    }
+
+}
@@ -0,0 +1,157 @@
+package plc.project;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * The immutable layout of a {@link Environment.PlcObject}: the slot index of
+ * each field and the methods shared by every object with this shape. Objects
+ * store their fields in an array indexed by slot, so objects with the same
+ * layout share a single shape instead of each carrying their own maps.
+ *
+ * Shapes are built from {@link #EMPTY} by transitions ({@link #withField} and
+ * {@link #withMethod}), which are cached so that the same sequence of
+ * transitions yields the same shape instance. This makes shape identity a
+ * valid inline cache key.
+ */
+public final class Shape {
+
+    public static final Shape EMPTY = new Shape(new String[0], new HashMap<>());
+
+    private final String[] fields;
+    private final Map<String, Integer> slots = new HashMap<>();
+    private final Map<Symbol, Environment.Function[]> methods;
+    private final ConcurrentMap<String, Shape> fieldTransitions = new ConcurrentHashMap<>();
+
+    /**
+     * Method transitions by function identity, which also determines the
+     * method's name and arity. Functions are held weakly, and shapes through
+     * a weak reference since each one refers to its functions, so the
+     * transitions of an interpreter's methods go away with the interpreter
+     * and the objects using them rather than accumulating.
+     */
+    private final Map<Environment.Function, WeakReference<Shape>> methodTransitions = new WeakHashMap<>();
+
+    private Shape(String[] fields, Map<Symbol, Environment.Function[]> methods) {
+        this.fields = fields;
+        this.methods = methods;
+        for (int i = 0; i < fields.length; i++) {
+            slots.put(fields[i], i);
+        }
+    }
+
+    /**
+     * Returns the shape of an object with the variables and functions visible
+     * from the given scope, with inner definitions shadowing outer ones.
+     */
+    public static Shape of(Scope scope) {
+        Shape shape = EMPTY;
+        for (Scope current = scope; current != null; current = current.getParent()) {
+            for (String name : current.getVariables().keySet()) {
+                if (shape.getSlot(name) < 0) {
+                    shape = shape.withField(name);
+                }
+            }
+            for (Environment.Function[] overloads : current.getFunctions().values()) {
+                for (Environment.Function function : overloads) {
+                    if (function != null && shape.lookupMethod(Symbol.of(function.getName()), function.getArity()) == null) {
+                        shape = shape.withMethod(function);
+                    }
+                }
+            }
+        }
+        return shape;
+    }
+
+    public int getFieldCount() {
+        return fields.length;
+    }
+
+    public String getFieldName(int slot) {
+        return fields[slot];
+    }
+
+    /**
+     * Returns the slot index of the given field, or {@code -1} if this shape
+     * does not have it.
+     */
+    public int getSlot(String name) {
+        Integer slot = slots.get(name);
+        return slot != null ? slot : -1;
+    }
+
+    /**
+     * Returns the method with the given name and arity (including the
+     * receiver), or {@code null} if this shape does not have it.
+     */
+    public Environment.Function lookupMethod(Symbol name, int arity) {
+        Environment.Function[] overloads = methods.get(name);
+        return overloads != null && arity < overloads.length ? overloads[arity] : null;
+    }
+
+    /**
+     * Returns the shape with the given field appended as the last slot.
+     */
+    public Shape withField(String name) {
+        if (slots.containsKey(name)) {
+            throw new RuntimeException("The field " + name + " is already defined in this shape.");
+        }
+        return fieldTransitions.computeIfAbsent(name, n -> {
+            String[] extended = Arrays.copyOf(fields, fields.length + 1);
+            extended[fields.length] = n;
+            return new Shape(extended, methods);
+        });
+    }
+
+    /**
+     * Returns the shape with the given method added. Transitions are cached
+     * per {@link Environment.Function} instance, so objects built from the
+     * same functions share shapes, while other functions with the same name
+     * and arity (such as the methods of another interpreter) get their own.
+     */
+    public Shape withMethod(Environment.Function function) {
+        Symbol name = Symbol.of(function.getName());
+        if (lookupMethod(name, function.getArity()) != null) {
+            throw new RuntimeException("The method " + name + "/" + function.getArity() + " is already defined in this shape.");
+        }
+        synchronized (methodTransitions) {
+            WeakReference<Shape> reference = methodTransitions.get(function);
+            Shape cached = reference != null ? reference.get() : null;
+            if (cached != null) {
+                return cached;
+            }
+            Map<Symbol, Environment.Function[]> extended = new HashMap<>(methods);
+            Environment.Function[] overloads = extended.getOrDefault(name, new Environment.Function[0]);
+            overloads = Arrays.copyOf(overloads, Math.max(overloads.length, function.getArity() + 1));
+            overloads[function.getArity()] = function;
+            extended.put(name, overloads);
+            Shape shape = new Shape(fields, extended);
+            methodTransitions.put(function, new WeakReference<>(shape));
+            return shape;
+        }
+    }
+
+    @Override
+    public String toString() {
+        List<String> names = new ArrayList<>();
+        methods.forEach((name, overloads) -> {
+            for (int arity = 0; arity < overloads.length; arity++) {
+                if (overloads[arity] != null) {
+                    names.add(name + "/" + arity);
+                }
+            }
+        });
+        return "Shape{" +
+                "fields=" + Arrays.toString(fields) +
+                ", methods=" + names +
+                '}';
+    }
+
+}
@@ -0,0 +1,38 @@
+package plc.project;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * An interned name. Two symbols with the same name are always the same
+ * instance, so symbols can be compared and hashed by identity instead of
+ * comparing strings on every lookup.
+ */
+public final class Symbol {
+
+    private static final ConcurrentMap<String, Symbol> SYMBOLS = new ConcurrentHashMap<>();
+
+    private final String name;
+
+    private Symbol(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Returns the unique symbol for the given name, creating it if needed.
+     */
+    public static Symbol of(String name) {
+        Symbol symbol = SYMBOLS.get(name);
+        return symbol != null ? symbol : SYMBOLS.computeIfAbsent(name, Symbol::new);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+
+}
@@ -0,0 +1,208 @@
+package plc.project;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+
+/**
+ * Allocation regression tests for lexing, parsing and executing fixed
+ * programs. Each operation is warmed up and then measured with
+ * {@link com.sun.management.ThreadMXBean#getThreadAllocatedBytes(long)}, and
+ * fails if it allocates more bytes per run than its budget in
+ * {@code src/test/resources/allocation-budgets.properties} plus the
+ * tolerance recorded there.
+ *
+ * These are excluded from {@code test} and run with
+ * {@code gradle allocationTest}, which is not part of {@code check} since
+ * the budgets depend on the JVM measuring them. After an intended
+ * change, {@code gradle allocationTest -PupdateAllocationBudgets} rewrites the
+ * budgets with the measured values instead of failing.
+ */
+@Tag("allocation")
+final class AllocationTests {
+
+    private static final Map<String, String> PROGRAMS = new LinkedHashMap<>();
+
+    static {
+        PROGRAMS.put("calls", String.join("\n",
+                "DEF fib(n) DO",
+                "    IF n < 2 DO",
+                "        RETURN n;",
+                "    END",
+                "    RETURN fib(n - 1) + fib(n - 2);",
+                "END",
+                "",
+                "DEF main() DO",
+                "    RETURN fib(12);",
+                "END"));
+        PROGRAMS.put("loops", String.join("\n",
+                "DEF main() DO",
+                "    LET sum = 0;",
+                "    LET i = 0;",
+                "    WHILE i < 1000 DO",
+                "        LET square = i * i;",
+                "        IF square / 3 * 3 == square DO",
+                "            sum = sum + square;",
+                "        END",
+                "        i = i + 1;",
+                "    END",
+                "    FOR j IN range(0, 1000) DO",
+                "        sum = sum - j;",
+                "    END",
+                "    RETURN sum;",
+                "END"));
+        PROGRAMS.put("objects", String.join("\n",
+                "DEF point(x, y) DO",
+                "    LET fields = map();",
+                "    set(fields, \"x\", x);",
+                "    set(fields, \"y\", y);",
+                "    RETURN object(fields);",
+                "END",
+                "",
+                "DEF main() DO",
+                "    LET points = list();",
+                "    FOR i IN range(0, 100) DO",
+                "        append(points, point(i, i * 2));",
+                "    END",
+                "    LET total = 0;",
+                "    FOR p IN points DO",
+                "        p.x = p.x + p.y;",
+                "        total = total + p.x;",
+                "    END",
+                "    RETURN total;",
+                "END"));
+    }
+
+    private static final Map<String, Object> RESULTS = new LinkedHashMap<>();
+
+    static {
+        RESULTS.put("calls", BigInteger.valueOf(144));
+        RESULTS.put("loops", BigInteger.valueOf(110_778_111));
+        RESULTS.put("objects", BigInteger.valueOf(14850));
+    }
+
+    private static final int WARMUP = 200;
+    private static final int ROUNDS = 5;
+    private static final int ITERATIONS = 20;
+
+    private static final Path BUDGETS = Paths.get(System.getProperty("plc.allocationBudgets", "src/test/resources/allocation-budgets.properties"));
+    private static final boolean UPDATE = Boolean.getBoolean("plc.updateAllocationBudgets");
+
+    private static final Properties budgets = new Properties();
+    private static final Map<String, Long> measured = new TreeMap<>();
+
+    @BeforeAll
+    static void loadBudgets() throws IOException {
+        if (Files.exists(BUDGETS)) {
+            try (BufferedReader reader = Files.newBufferedReader(BUDGETS, StandardCharsets.UTF_8)) {
+                budgets.load(reader);
+            }
+        } else if (!UPDATE) {
+            Assertions.fail("Missing allocation budgets " + BUDGETS.toAbsolutePath() + ".");
+        }
+    }
+
+    @AfterAll
+    static void saveBudgets() throws IOException {
+        if (!UPDATE) {
+            return;
+        }
+        try (Writer writer = Files.newBufferedWriter(BUDGETS, StandardCharsets.UTF_8)) {
+            writer.write("# Bytes allocated per run of each operation, see AllocationTests.\n");
+            writer.write("# Regenerate with: gradle allocationTest -PupdateAllocationBudgets\n");
+            writer.write("tolerance=" + budgets.getProperty("tolerance", "0.10") + "\n");
+            for (Map.Entry<String, Long> entry : measured.entrySet()) {
+                writer.write(entry.getKey() + "=" + entry.getValue() + "\n");
+            }
+        }
+    }
+
+    @Test
+    void testLex() {
+        for (Map.Entry<String, String> program : PROGRAMS.entrySet()) {
+            check("lex." + program.getKey(), () -> new Lexer(program.getValue()).lex());
+        }
+    }
+
+    @Test
+    void testParse() {
+        for (Map.Entry<String, String> program : PROGRAMS.entrySet()) {
+            List<Token> tokens = new Lexer(program.getValue()).lex();
+            check("parse." + program.getKey(), () -> new Parser(tokens).parseSource());
+        }
+    }
+
+    /**
+     * Executes each program on a reused interpreter, as a pooled interpreter
+     * would, so the budget covers the run rather than creating builtins.
+     */
+    @Test
+    void testExecute() {
+        for (Map.Entry<String, String> program : PROGRAMS.entrySet()) {
+            Ast.Source ast = new Parser(new Lexer(program.getValue()).lex()).parseSource();
+            Interpreter interpreter = new Interpreter(null, new Program(ast));
+            Assertions.assertEquals(RESULTS.get(program.getKey()), interpreter.visit(ast).getValue());
+            check("execute." + program.getKey(), () -> {
+                interpreter.reset(null);
+                interpreter.visit(ast);
+            });
+        }
+    }
+
+    private static void check(String name, Runnable operation) {
+        long bytes = bytesPerRun(operation);
+        measured.put(name, bytes);
+        if (UPDATE) {
+            return;
+        }
+        String budget = budgets.getProperty(name);
+        Assertions.assertNotNull(budget, "Missing allocation budget for " + name + ", measured " + bytes + " bytes.");
+        double tolerance = Double.parseDouble(budgets.getProperty("tolerance"));
+        long limit = (long) (Long.parseLong(budget) * (1 + tolerance));
+        Assertions.assertTrue(bytes <= limit, String.format(Locale.ROOT,
+                "%s allocated %d bytes per run, over its budget of %s bytes (+%.0f%%).", name, bytes, budget, tolerance * 100));
+    }
+
+    /**
+     * Returns the fewest bytes allocated per run over several rounds, after
+     * enough warmup runs for the hot paths to be compiled.
+     */
+    private static long bytesPerRun(Runnable operation) {
+        for (int i = 0; i < WARMUP; i++) {
+            operation.run();
+        }
+        long min = Long.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            long before = allocatedBytes();
+            for (int i = 0; i < ITERATIONS; i++) {
+                operation.run();
+            }
+            min = Math.min(min, (allocatedBytes() - before) / ITERATIONS);
+        }
+        return min;
+    }
+
+    private static long allocatedBytes() {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        return threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+}
@@ -0,0 +1,84 @@
+package plc.project;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Arrays;
+
+final class BuiltinBinderTests {
+
+    public static final class Host {
+
+        static int calls = 0;
+
+        @Builtin
+        public static BigInteger add(BigInteger left, BigInteger right) {
+            return left.add(right);
+        }
+
+        @Builtin("scale")
+        public static BigDecimal multiply(BigDecimal value, BigInteger factor) {
+            return value.multiply(new BigDecimal(factor));
+        }
+
+        @Builtin
+        public static String describe(String name, boolean flag, char grade, Character other, Environment.PlcObject raw) {
+            return name + flag + grade + other + raw.getValue();
+        }
+
+        @Builtin
+        public static void touch() {
+            calls++;
+        }
+
+        @Builtin
+        public static Environment.PlcObject same(Environment.PlcObject object) {
+            return object;
+        }
+
+        public static BigInteger ignored(BigInteger value) {
+            return value;
+        }
+
+    }
+
+    @Test
+    void testBind() {
+        Scope scope = new Scope(null);
+        BuiltinBinder.bind(Host.class, scope);
+        Assertions.assertEquals(BigInteger.valueOf(3), scope.lookupFunction("add", 2).invoke2(
+                Environment.create(BigInteger.ONE), Environment.create(BigInteger.valueOf(2))).getValue());
+        Assertions.assertEquals(new BigDecimal("3.0"), scope.lookupFunction("scale", 2).invoke(Arrays.asList(
+                Environment.create(new BigDecimal("1.5")), Environment.create(BigInteger.valueOf(2)))).getValue());
+        Assertions.assertEquals("atrueAB1", scope.lookupFunction("describe", 5).invoke(new Environment.PlcObject[] {
+                Environment.create("a"), Environment.create(true), Environment.create('A'), Environment.create('B'), Environment.create(BigInteger.ONE)
+        }).getValue());
+        Assertions.assertSame(Environment.NIL, scope.lookupFunction("touch", 0).invoke0());
+        Assertions.assertEquals(1, Host.calls);
+        Environment.PlcObject object = Environment.create("object");
+        Assertions.assertSame(object, scope.lookupFunction("same", 1).invoke1(object));
+        Assertions.assertNull(scope.findFunction(Symbol.of("ignored"), 1));
+    }
+
+    @Test
+    void testTypeMismatch() {
+        Scope scope = new Scope(null);
+        BuiltinBinder.bind(Host.class, scope);
+        RuntimeException exception = Assertions.assertThrows(RuntimeException.class, () -> scope.lookupFunction("add", 2).invoke2(
+                Environment.create(BigInteger.ONE), Environment.create("two")));
+        Assertions.assertEquals("Expected type java.math.BigInteger, received java.lang.String.", exception.getMessage());
+    }
+
+    @Test
+    void testInterpreter() {
+        Scope scope = new Scope(null);
+        BuiltinBinder.bind(Host.class, scope);
+        Interpreter interpreter = new Interpreter(scope);
+        Assertions.assertEquals(BigInteger.TEN, interpreter.visit(new Ast.Expr.Function(java.util.Optional.empty(), "add", Arrays.asList(
+                new Ast.Expr.Literal(BigInteger.valueOf(4)), new Ast.Expr.Literal(BigInteger.valueOf(6))
+        ))).getValue());
+    }
+
+}
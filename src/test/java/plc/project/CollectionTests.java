@@ -0,0 +1,128 @@
+package plc.project;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+final class CollectionTests {
+
+    @Test
+    void testList() {
+        PlcList list = new PlcList();
+        for (int i = 0; i < 100; i++) {
+            list.add(Environment.create(BigInteger.valueOf(i * i)));
+        }
+        Assertions.assertTrue(list.isSpecialized());
+        Assertions.assertEquals(100, list.size());
+        Assertions.assertEquals(BigInteger.valueOf(81), list.get(9).getValue());
+        list.set(9, Environment.create(BigInteger.ONE));
+        Assertions.assertEquals(BigInteger.ONE, list.get(9).getValue());
+        Assertions.assertThrows(RuntimeException.class, () -> list.get(100));
+    }
+
+    @Test
+    void testListGeneralize() {
+        PlcList list = new PlcList();
+        list.add(Environment.create(BigInteger.ONE));
+        list.add(Environment.create(BigInteger.ONE.shiftLeft(64)));
+        list.add(Environment.create("three"));
+        Assertions.assertFalse(list.isSpecialized());
+        List<Object> values = new ArrayList<>();
+        list.forEach(element -> values.add(element.getValue()));
+        Assertions.assertEquals(Arrays.asList(BigInteger.ONE, BigInteger.ONE.shiftLeft(64), "three"), values);
+        Assertions.assertEquals("[1, 18446744073709551616, three]", list.toString());
+    }
+
+    @Test
+    void testMap() {
+        PlcMap map = new PlcMap();
+        for (int i = 0; i < 1000; i++) {
+            map.put(Environment.create(BigInteger.valueOf(i * 7L)), Environment.create(BigInteger.valueOf(i)));
+            map.put(Environment.create("key" + i), Environment.create(BigInteger.valueOf(-i)));
+        }
+        map.put(Environment.create(BigInteger.ZERO), Environment.create("zero"));
+        Assertions.assertEquals(2000, map.size());
+        Assertions.assertEquals("zero", map.get(Environment.create(BigInteger.ZERO)).getValue());
+        Assertions.assertEquals(BigInteger.valueOf(500), map.get(Environment.create(BigInteger.valueOf(3500))).getValue());
+        Assertions.assertEquals(BigInteger.valueOf(-999), map.get(Environment.create("key999")).getValue());
+        Assertions.assertSame(Environment.NIL, map.get(Environment.create(BigInteger.ONE)));
+        Assertions.assertSame(Environment.NIL, map.get(Environment.create("missing")));
+        Set<Object> keys = new HashSet<>();
+        map.forEach(key -> keys.add(key.getValue()));
+        Assertions.assertEquals(2000, keys.size());
+        Assertions.assertThrows(RuntimeException.class, () -> map.put(Environment.create(true), Environment.NIL));
+    }
+
+    @Test
+    void testBuiltins() {
+        Scope scope = new Scope(null);
+        scope.defineVariable("sum", Environment.create(BigInteger.ZERO));
+        Interpreter interpreter = new Interpreter(scope);
+        Environment.PlcObject list = interpreter.visit(TestFixtures.call("list", TestFixtures.call("range", TestFixtures.literal(0), TestFixtures.literal(5))));
+        scope.defineVariable("numbers", list);
+        interpreter.visit(TestFixtures.call("append", TestFixtures.access("numbers"), TestFixtures.literal(5)));
+        interpreter.visit(TestFixtures.call("set", TestFixtures.access("numbers"), TestFixtures.literal(0), TestFixtures.literal(10)));
+        Assertions.assertEquals(BigInteger.valueOf(6), interpreter.visit(TestFixtures.call("length", TestFixtures.access("numbers"))).getValue());
+        Assertions.assertEquals(BigInteger.valueOf(3), interpreter.visit(TestFixtures.call("get", TestFixtures.access("numbers"), TestFixtures.literal(3))).getValue());
+        interpreter.visit(new Ast.Stmt.For("n", TestFixtures.access("numbers"), Arrays.asList(new Ast.Stmt.Assignment(
+                TestFixtures.access("sum"),
+                new Ast.Expr.Binary("+", TestFixtures.access("sum"), TestFixtures.access("n"))
+        ))));
+        Assertions.assertEquals(BigInteger.valueOf(25), scope.lookupVariable("sum").getValue().getValue());
+
+        scope.defineVariable("table", interpreter.visit(TestFixtures.call("map")));
+        interpreter.visit(TestFixtures.call("set", TestFixtures.access("table"), new Ast.Expr.Literal("a"), TestFixtures.literal(1)));
+        interpreter.visit(TestFixtures.call("set", TestFixtures.access("table"), TestFixtures.literal(2), new Ast.Expr.Literal("b")));
+        Assertions.assertEquals(BigInteger.ONE, interpreter.visit(TestFixtures.call("get", TestFixtures.access("table"), new Ast.Expr.Literal("a"))).getValue());
+        Assertions.assertEquals("b", interpreter.visit(TestFixtures.call("get", TestFixtures.access("table"), TestFixtures.literal(2))).getValue());
+        Assertions.assertEquals(BigInteger.valueOf(2), interpreter.visit(TestFixtures.call("length", TestFixtures.access("table"))).getValue());
+        Assertions.assertThrows(RuntimeException.class, () -> interpreter.visit(TestFixtures.call("length", TestFixtures.literal(1))));
+    }
+
+    @Test
+    void testObjectBuiltin() {
+        Scope scope = new Scope(null);
+        Interpreter interpreter = new Interpreter(scope);
+        scope.defineVariable("fields", interpreter.visit(TestFixtures.call("map")));
+        interpreter.visit(TestFixtures.call("set", TestFixtures.access("fields"), new Ast.Expr.Literal("x"), TestFixtures.literal(1)));
+        interpreter.visit(TestFixtures.call("set", TestFixtures.access("fields"), new Ast.Expr.Literal("y"), TestFixtures.literal(2)));
+        Environment.PlcObject first = interpreter.visit(TestFixtures.call("object", TestFixtures.access("fields")));
+        Environment.PlcObject second = interpreter.visit(TestFixtures.call("object", TestFixtures.access("fields")));
+        Assertions.assertSame(first.getShape(), second.getShape());
+        first.setField("x", Environment.create(BigInteger.TEN));
+        Assertions.assertEquals(BigInteger.TEN, first.getField("x").getValue().getValue());
+        Assertions.assertEquals(BigInteger.ONE, second.getField("x").getValue().getValue());
+        Assertions.assertEquals(BigInteger.valueOf(2), second.getField("y").getValue().getValue());
+    }
+
+    @Test
+    void testObjectBuiltinNil() {
+        Scope scope = new Scope(null);
+        Interpreter interpreter = new Interpreter(scope);
+        scope.defineVariable("fields", interpreter.visit(TestFixtures.call("map")));
+        interpreter.visit(TestFixtures.call("set", TestFixtures.access("fields"), new Ast.Expr.Literal("x"), new Ast.Expr.Literal(null)));
+        Environment.PlcObject object = interpreter.visit(TestFixtures.call("object", TestFixtures.access("fields")));
+        Assertions.assertSame(Environment.NIL, object.getField("x").getValue());
+        Assertions.assertThrows(RuntimeException.class, () -> interpreter.visit(TestFixtures.call("object", new Ast.Expr.Literal(null))));
+        interpreter.visit(TestFixtures.call("set", TestFixtures.access("fields"), TestFixtures.literal(1), TestFixtures.literal(2)));
+        Assertions.assertThrows(RuntimeException.class, () -> interpreter.visit(TestFixtures.call("object", TestFixtures.access("fields"))));
+    }
+
+    @Test
+    void testDecimalBuiltins() {
+        Interpreter interpreter = new Interpreter(new Scope(null));
+        Assertions.assertEquals(new BigDecimal("1.414213562373095"), interpreter.visit(TestFixtures.call("sqrt", new Ast.Expr.Literal(new BigDecimal("2.0")))).getValue());
+        Assertions.assertEquals(new BigDecimal("0.33"), interpreter.visit(TestFixtures.call("round", new Ast.Expr.Literal(new BigDecimal("0.3333")), TestFixtures.literal(2))).getValue());
+        Assertions.assertThrows(RuntimeException.class, () -> interpreter.visit(TestFixtures.call("sqrt", new Ast.Expr.Literal(new BigDecimal("-1.0")))));
+        Assertions.assertThrows(RuntimeException.class, () -> interpreter.visit(TestFixtures.call("round", new Ast.Expr.Literal(BigDecimal.ONE), new Ast.Expr.Literal(BigInteger.ONE.shiftLeft(40)))));
+        Assertions.assertEquals(BigInteger.valueOf(5), interpreter.visit(TestFixtures.call("length", new Ast.Expr.Literal("hello"))).getValue());
+    }
+
+}
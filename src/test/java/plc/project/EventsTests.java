@@ -0,0 +1,110 @@
+package plc.project;
+
+import jdk.jfr.EventType;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Collectors;
+
+final class EventsTests {
+
+    private static final String SOURCE = String.join("\n",
+            "DEF fib(n) DO",
+            "    IF n < 2 DO",
+            "        RETURN n;",
+            "    END",
+            "    RETURN fib(n - 1) + fib(n - 2);",
+            "END",
+            "",
+            "DEF main() DO",
+            "    RETURN fib(5);",
+            "END");
+
+    @Test
+    void testEvents() throws IOException {
+        List<RecordedEvent> events = record(() -> {
+            Ast.Source ast = new Parser(new Lexer(SOURCE).lex()).parseSource();
+            Assertions.assertEquals(BigInteger.valueOf(5), new Interpreter(new Scope(null)).visit(ast).getValue());
+        });
+
+        RecordedEvent lex = single(events, "plc.Lex");
+        Assertions.assertEquals(SOURCE.length(), lex.getLong("bytes"));
+        Assertions.assertEquals(new Lexer(SOURCE).lex().size(), lex.getInt("tokens"));
+
+        RecordedEvent parse = single(events, "plc.Parse");
+        Assertions.assertEquals(lex.getInt("tokens"), parse.getInt("tokens"));
+        // Source, 2 methods, If, 3 returns and 15 expressions.
+        Assertions.assertEquals(22, parse.getInt("nodes"));
+
+        List<RecordedEvent> invocations = named(events, "plc.MethodInvocation");
+        Assertions.assertEquals(16, invocations.size());
+        Assertions.assertEquals(15, invocations.stream().filter(e -> e.getString("name").equals("fib")).count());
+        Assertions.assertTrue(invocations.stream().allMatch(e -> e.getInt("arity") == (e.getString("name").equals("fib") ? 1 : 0)));
+
+        RecordedEvent script = single(events, "plc.Script");
+        Assertions.assertEquals(2, script.getInt("methods"));
+        Assertions.assertTrue(script.getBoolean("succeeded"));
+        Assertions.assertNull(script.getString("error"));
+    }
+
+    @Test
+    void testFailedScript() throws IOException {
+        Ast.Source ast = new Parser(new Lexer("DEF main() DO RETURN undefined; END").lex()).parseSource();
+        List<RecordedEvent> events = record(() -> Assertions.assertThrows(RuntimeException.class,
+                () -> new Interpreter(new Scope(null)).visit(ast)));
+
+        RecordedEvent script = single(events, "plc.Script");
+        Assertions.assertFalse(script.getBoolean("succeeded"));
+        Assertions.assertNotNull(script.getString("error"));
+    }
+
+    @Test
+    void testThreshold() {
+        // Method invocations are only recorded above the threshold by default.
+        String threshold = EventType.getEventType(Events.MethodInvocation.class).getSettingDescriptors().stream()
+                .filter(setting -> setting.getName().equals("threshold"))
+                .findFirst().orElseThrow(AssertionError::new)
+                .getDefaultValue();
+        Assertions.assertEquals("1 ms", threshold);
+    }
+
+    private static List<RecordedEvent> record(Runnable runnable) throws IOException {
+        try (Recording recording = new Recording()) {
+            for (String name : new String[] {"plc.Lex", "plc.Parse", "plc.MethodInvocation", "plc.Script"}) {
+                recording.enable(name).withThreshold(Duration.ZERO);
+            }
+            recording.start();
+            runnable.run();
+            recording.stop();
+            Path file = Files.createTempFile("plc", ".jfr");
+            try {
+                recording.dump(file);
+                return RecordingFile.readAllEvents(file).stream()
+                        .filter(e -> e.getEventType().getName().startsWith("plc."))
+                        .collect(Collectors.toList());
+            } finally {
+                Files.delete(file);
+            }
+        }
+    }
+
+    private static List<RecordedEvent> named(List<RecordedEvent> events, String name) {
+        return events.stream().filter(e -> e.getEventType().getName().equals(name)).collect(Collectors.toList());
+    }
+
+    private static RecordedEvent single(List<RecordedEvent> events, String name) {
+        List<RecordedEvent> named = named(events, name);
+        Assertions.assertEquals(1, named.size(), name);
+        return named.get(0);
+    }
+
+}
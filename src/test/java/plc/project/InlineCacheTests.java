@@ -0,0 +1,156 @@
+package plc.project;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigInteger;
+
+/**
+ * Checks that call and field sites keep returning correct results when the
+ * lookups their inline caches remember become stale.
+ */
+final class InlineCacheTests {
+
+    @Test
+    void testShadowingFunction() {
+        Scope parent = new Scope(null);
+        parent.defineFunction("f", 0, args -> Environment.create(BigInteger.ONE));
+        Interpreter interpreter = new Interpreter(parent);
+        Ast.Expr call = expression("f()");
+        Assertions.assertEquals(BigInteger.ONE, interpreter.visit(call).getValue());
+        Assertions.assertEquals(BigInteger.ONE, interpreter.visit(call).getValue());
+        // Defining f in a scope the cached lookup went through bumps the
+        // version, so the site resolves the shadowing definition.
+        interpreter.getScope().defineFunction("f", 0, args -> Environment.create(BigInteger.TWO));
+        Assertions.assertEquals(BigInteger.TWO, interpreter.visit(call).getValue());
+    }
+
+    @Test
+    void testRedefinitionAfterReset() {
+        Scope first = new Scope(null);
+        first.defineFunction("f", 0, args -> Environment.create(BigInteger.ONE));
+        Scope second = new Scope(null);
+        second.defineFunction("f", 0, args -> Environment.create(BigInteger.TEN));
+        Interpreter interpreter = new Interpreter(first);
+        Ast.Expr call = expression("f()");
+        Assertions.assertEquals(BigInteger.ONE, interpreter.visit(call).getValue());
+        interpreter.reset(second);
+        Assertions.assertEquals(BigInteger.TEN, interpreter.visit(call).getValue());
+        interpreter.reset(first);
+        Assertions.assertEquals(BigInteger.ONE, interpreter.visit(call).getValue());
+    }
+
+    @Test
+    void testDifferentSourceAfterReset() {
+        Ast.Source first = source(String.join("\n",
+                "DEF f(n) DO",
+                "    RETURN n + 1;",
+                "END",
+                "DEF main() DO",
+                "    RETURN f(1);",
+                "END"));
+        Ast.Source second = source(String.join("\n",
+                "DEF f(n) DO",
+                "    RETURN n * 10;",
+                "END",
+                "DEF main() DO",
+                "    RETURN f(2);",
+                "END"));
+        Interpreter interpreter = new Interpreter(null);
+        Assertions.assertEquals(BigInteger.TWO, interpreter.visit(first).getValue());
+        interpreter.reset(null);
+        // The methods of the first source are replaced, rather than the
+        // second source failing to define them again.
+        Assertions.assertEquals(BigInteger.valueOf(20), interpreter.visit(second).getValue());
+        interpreter.reset(null);
+        Assertions.assertEquals(BigInteger.TWO, interpreter.visit(first).getValue());
+    }
+
+    @Test
+    void testPolymorphicMethod() {
+        Interpreter interpreter = new Interpreter(new Scope(null));
+        interpreter.getScope().defineVariable("object", Environment.NIL);
+        Environment.PlcObject[] objects = new Environment.PlcObject[InlineCache.LIMIT + 2];
+        for (int i = 0; i < objects.length; i++) {
+            Scope scope = new Scope(null);
+            BigInteger value = BigInteger.valueOf(i);
+            scope.defineFunction("m", 1, args -> Environment.create(value));
+            objects[i] = new Environment.PlcObject(scope, "object " + i);
+        }
+        Ast.Expr call = expression("object.m()");
+        // Cycle through more shapes than the cache holds, so the site goes
+        // from monomorphic through polymorphic to megamorphic.
+        for (int round = 0; round < 2; round++) {
+            for (int i = 0; i < objects.length; i++) {
+                interpreter.getScope().lookupVariable("object").setValue(objects[i]);
+                Assertions.assertEquals(BigInteger.valueOf(i), interpreter.visit(call).getValue());
+            }
+        }
+        Assertions.assertTrue(interpreter.getCacheStatistics().get("method").getMegamorphicSites() > 0);
+    }
+
+    @Test
+    void testMethodTransitions() {
+        Environment.Function first = Environment.Function.of("m", 1, args -> Environment.create(BigInteger.ONE));
+        Environment.Function second = Environment.Function.of("m", 1, args -> Environment.create(BigInteger.TWO));
+        Shape shape = Shape.EMPTY.withField("x").withMethod(first);
+        Assertions.assertSame(shape, Shape.EMPTY.withField("x").withMethod(first));
+        // Transitions are keyed by function identity, so another function
+        // with the same name and arity gets its own shape without evicting
+        // the first one.
+        Shape other = Shape.EMPTY.withField("x").withMethod(second);
+        Assertions.assertNotSame(shape, other);
+        Assertions.assertSame(first, shape.lookupMethod(Symbol.of("m"), 1));
+        Assertions.assertSame(second, other.lookupMethod(Symbol.of("m"), 1));
+        Assertions.assertSame(shape, Shape.EMPTY.withField("x").withMethod(first));
+        Assertions.assertSame(other, Shape.EMPTY.withField("x").withMethod(second));
+    }
+
+    @Test
+    void testFieldSlots() {
+        Interpreter interpreter = new Interpreter(new Scope(null));
+        interpreter.getScope().defineVariable("object", Environment.NIL);
+        Environment.PlcObject a = new Environment.PlcObject(Shape.EMPTY.withField("x"), "a");
+        Environment.PlcObject b = new Environment.PlcObject(Shape.EMPTY.withField("y").withField("x"), "b");
+        a.getField(a.getShape().getSlot("x")).setValue(Environment.create(BigInteger.ONE));
+        b.getField(b.getShape().getSlot("x")).setValue(Environment.create(BigInteger.TWO));
+        Assertions.assertNotEquals(a.getShape().getSlot("x"), b.getShape().getSlot("x"));
+        Ast.Expr access = expression("object.x");
+        for (int round = 0; round < 2; round++) {
+            interpreter.getScope().lookupVariable("object").setValue(a);
+            Assertions.assertEquals(BigInteger.ONE, interpreter.visit(access).getValue());
+            interpreter.getScope().lookupVariable("object").setValue(b);
+            Assertions.assertEquals(BigInteger.TWO, interpreter.visit(access).getValue());
+        }
+    }
+
+    @Test
+    void testRecursiveCalls() {
+        Interpreter interpreter = new Interpreter(new Scope(null));
+        Ast.Source source = source(String.join("\n",
+                "DEF fib(n) DO",
+                "    IF n < 2 DO",
+                "        RETURN n;",
+                "    END",
+                "    RETURN fib(n - 1) + fib(n - 2);",
+                "END",
+                "DEF main() DO",
+                "    RETURN fib(15);",
+                "END"));
+        Assertions.assertEquals(BigInteger.valueOf(610), interpreter.visit(source).getValue());
+        // Every invocation runs in a new frame, but all of them share the
+        // global function scope, so the call sites stay monomorphic.
+        InlineCache.Statistics functions = interpreter.getCacheStatistics().get("function");
+        Assertions.assertEquals(0, functions.getMegamorphicSites());
+        Assertions.assertTrue(functions.getHitRate() > 0.99, functions.toString());
+    }
+
+    private static Ast.Source source(String source) {
+        return new Parser(new Lexer(source).lex()).parseSource();
+    }
+
+    private static Ast.Expr expression(String source) {
+        return new Parser(new Lexer(source).lex()).parseExpression();
+    }
+
+}
@@ -0,0 +1,149 @@
+package plc.project;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.LongStream;
+
+final class InterpreterMetricsTests {
+
+    private static final String SOURCE = String.join("\n",
+            "DEF fib(n) DO",
+            "    IF n < 2 DO",
+            "        RETURN n;",
+            "    END",
+            "    RETURN fib(n - 1) + fib(n - 2);",
+            "END",
+            "",
+            "DEF main() DO",
+            "    RETURN fib(10);",
+            "END");
+
+    @Test
+    void testMBean() throws JMException {
+        InterpreterMetrics metrics = new InterpreterMetrics();
+        ObjectName name = metrics.register("testMBean");
+        try {
+            Ast.Source ast = new Parser(new Lexer(SOURCE).lex()).parseSource();
+            Interpreter interpreter = new Interpreter(new Scope(null));
+            interpreter.setMetrics(metrics);
+            Assertions.assertEquals(BigInteger.valueOf(55), interpreter.visit(ast).getValue());
+            Assertions.assertEquals(BigInteger.valueOf(55), interpreter.visit(ast).getValue());
+
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            Assertions.assertEquals(2L, server.getAttribute(name, "ScriptsExecuted"));
+            Assertions.assertEquals(0L, server.getAttribute(name, "ScriptsFailed"));
+            // main and 177 invocations of fib, each in a new frame.
+            Assertions.assertEquals(2 * 178L, server.getAttribute(name, "FunctionCalls"));
+            Assertions.assertEquals(2 * 178L, server.getAttribute(name, "ScopeAllocations"));
+            Assertions.assertEquals(0L, server.getAttribute(name, "CurrentScopeDepth"));
+            Assertions.assertEquals(11L, server.getAttribute(name, "MaxScopeDepth"));
+            long nodes = (Long) server.getAttribute(name, "NodesEvaluated");
+            Assertions.assertTrue(nodes > 2 * 177 * 5, "nodes " + nodes);
+            double hitRate = (Double) server.getAttribute(name, "FunctionCacheHitRate");
+            Assertions.assertTrue(hitRate > 0.9 && hitRate <= 1.0, "hit rate " + hitRate);
+            Assertions.assertEquals(0.0, server.getAttribute(name, "FieldCacheHitRate"));
+            long[] histogram = (long[]) server.getAttribute(name, "LatencyHistogram");
+            Assertions.assertEquals(2, LongStream.of(histogram).sum());
+            Assertions.assertTrue((Long) server.getAttribute(name, "P99Latency") > 0);
+
+            server.invoke(name, "reset", new Object[0], new String[0]);
+            Assertions.assertEquals(0L, server.getAttribute(name, "ScriptsExecuted"));
+            Assertions.assertEquals(0L, server.getAttribute(name, "NodesEvaluated"));
+            Assertions.assertEquals(0L, server.getAttribute(name, "MedianLatency"));
+        } finally {
+            metrics.unregister(name);
+        }
+    }
+
+    @Test
+    void testFailure() {
+        InterpreterMetrics metrics = new InterpreterMetrics();
+        Ast.Source ast = new Parser(new Lexer("DEF main() DO RETURN undefined; END").lex()).parseSource();
+        Interpreter interpreter = new Interpreter(new Scope(null));
+        interpreter.setMetrics(metrics);
+        Assertions.assertThrows(RuntimeException.class, () -> interpreter.visit(ast));
+        Assertions.assertEquals(1, metrics.getScriptsExecuted());
+        Assertions.assertEquals(1, metrics.getScriptsFailed());
+        Assertions.assertEquals(0, metrics.getCurrentScopeDepth());
+    }
+
+    @Test
+    void testSwapMetrics() {
+        Ast.Source ast = new Parser(new Lexer(SOURCE).lex()).parseSource();
+        Interpreter interpreter = new Interpreter(new Scope(null));
+        InterpreterMetrics first = new InterpreterMetrics();
+        interpreter.setMetrics(first);
+        interpreter.visit(ast);
+        // Work done without metrics, or reported to other metrics, is not
+        // counted once new metrics are set.
+        interpreter.setMetrics(null);
+        interpreter.visit(ast);
+        InterpreterMetrics second = new InterpreterMetrics();
+        interpreter.setMetrics(second);
+        interpreter.visit(ast);
+        Assertions.assertEquals(first.getNodesEvaluated(), second.getNodesEvaluated());
+        Assertions.assertEquals(1.0, second.getFunctionCacheHitRate(), "all call sites are warm");
+        Assertions.assertTrue(first.getFunctionCacheHitRate() < 1.0);
+    }
+
+    @Test
+    void testParallelDepth() {
+        InterpreterMetrics metrics = new InterpreterMetrics();
+        Ast.Source ast = new Parser(new Lexer(String.join("\n",
+                "DEF fib(n) DO",
+                "    IF n < 2 DO",
+                "        RETURN n;",
+                "    END",
+                "    RETURN fib(n - 1) + fib(n - 2);",
+                "END",
+                "",
+                "DEF run() DO",
+                "    PARALLEL FOR i IN range(0, 8) DO",
+                "        fib(5);",
+                "    END",
+                "END",
+                "",
+                "DEF main() DO",
+                "    run();",
+                "END")).lex()).parseSource();
+        Interpreter interpreter = new Interpreter(new Scope(null));
+        interpreter.setMetrics(metrics);
+        interpreter.visit(ast);
+        // main and run, then five frames of fib on the forked interpreters.
+        Assertions.assertEquals(7, metrics.getMaxScopeDepth());
+        Assertions.assertEquals(0, metrics.getCurrentScopeDepth());
+    }
+
+    @Test
+    void testConcurrent() throws InterruptedException {
+        InterpreterMetrics metrics = new InterpreterMetrics();
+        InterpreterPool pool = new InterpreterPool(new Program(new Parser(new Lexer(SOURCE).lex()).parseSource()), 4);
+        pool.setMetrics(metrics);
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            Thread thread = new Thread(() -> {
+                for (int j = 0; j < 25; j++) {
+                    pool.execute(null);
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        Assertions.assertEquals(100, metrics.getScriptsExecuted());
+        Assertions.assertEquals(100 * 178, metrics.getFunctionCalls());
+        Assertions.assertEquals(0, metrics.getCurrentScopeDepth());
+        Assertions.assertEquals(11, metrics.getMaxScopeDepth());
+    }
+
+}
@@ -0,0 +1,56 @@
+package plc.project;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigInteger;
+
+final class InterpreterPoolTests {
+
+    @Test
+    void testReuse() {
+        InterpreterPool pool = new InterpreterPool(new Program(TestFixtures.runCounter()), 2);
+        for (int i = 0; i < 3; i++) {
+            Assertions.assertEquals(BigInteger.valueOf(11), pool.execute(TestFixtures.bindings(10)).getValue());
+            Assertions.assertEquals(1, pool.getIdleCount());
+        }
+    }
+
+    @Test
+    void testBindingsDoNotLeak() {
+        InterpreterPool pool = new InterpreterPool(new Program(TestFixtures.runCounter()), 1);
+        Assertions.assertEquals(BigInteger.valueOf(6), pool.execute(TestFixtures.bindings(5)).getValue());
+        Assertions.assertThrows(RuntimeException.class, () -> pool.execute(new Scope(null)));
+        Assertions.assertEquals(BigInteger.valueOf(8), pool.execute(TestFixtures.bindings(7)).getValue());
+    }
+
+    @Test
+    void testFailedRun() {
+        InterpreterPool pool = new InterpreterPool(new Program(TestFixtures.runCounter()), 1);
+        Assertions.assertThrows(RuntimeException.class, () -> pool.execute(new Scope(null)));
+        Assertions.assertEquals(1, pool.getIdleCount());
+        Assertions.assertEquals(BigInteger.valueOf(4), pool.execute(TestFixtures.bindings(3)).getValue());
+    }
+
+    @Test
+    void testWarmCaches() {
+        Program program = new Program(new Parser(new Lexer(String.join("\n",
+                "DEF twice(x) DO",
+                "    RETURN x * 2;",
+                "END",
+                "DEF main() DO",
+                "    RETURN twice(length(list(range(0, input))));",
+                "END")).lex()).parseSource());
+        InterpreterPool pool = new InterpreterPool(program, 1);
+        InterpreterMetrics metrics = new InterpreterMetrics();
+        pool.setMetrics(metrics);
+        Assertions.assertEquals(BigInteger.valueOf(6), pool.execute(TestFixtures.bindings(3)).getValue());
+        Assertions.assertTrue(metrics.getFunctionCacheHitRate() < 1.0);
+        // Resetting the pooled interpreter under new bindings leaves the
+        // functions it resolves unchanged, so its call sites stay warm.
+        metrics.reset();
+        Assertions.assertEquals(BigInteger.valueOf(10), pool.execute(TestFixtures.bindings(5)).getValue());
+        Assertions.assertEquals(1.0, metrics.getFunctionCacheHitRate());
+    }
+
+}
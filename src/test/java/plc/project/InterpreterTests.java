@@ -2,17 +2,24 @@ package plc.project;
 
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
 
 import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.io.PrintStream;
 import java.math.BigDecimal;
 import java.math.BigInteger;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 import java.util.stream.Stream;
@@ -47,6 +54,38 @@ final class InterpreterTests {
         );
     }
 
+    @Test
+    void testScopeObject() {
+        Scope scope = new Scope(null);
+        scope.defineVariable("x", Environment.create(BigInteger.ONE));
+        Environment.PlcObject object = new Environment.PlcObject(scope, "object");
+        // Fields share the scope's variables, but the layout is taken when
+        // the object is created, so later definitions are not fields.
+        scope.lookupVariable("x").setValue(Environment.create(BigInteger.TWO));
+        Assertions.assertEquals(BigInteger.TWO, object.getField("x").getValue().getValue());
+        object.setField("x", Environment.create(BigInteger.TEN));
+        Assertions.assertEquals(BigInteger.TEN, scope.lookupVariable("x").getValue().getValue());
+        scope.defineVariable("y", Environment.create(BigInteger.ONE));
+        Assertions.assertThrows(RuntimeException.class, () -> object.getField("y"));
+    }
+
+    @Test
+    void testBuiltinShadowing() {
+        // Builtins are defined in a scope above the source's globals, so a
+        // source may declare methods with the same names.
+        Ast.Source ast = new Parser(new Lexer(String.join("\n",
+                "DEF length(x) DO",
+                "    RETURN 42;",
+                "END",
+                "DEF print(x) DO",
+                "    RETURN x;",
+                "END",
+                "DEF main() DO",
+                "    RETURN print(length(range(0, 3)));",
+                "END")).lex()).parseSource();
+        test(ast, BigInteger.valueOf(42), new Scope(null));
+    }
+
     @ParameterizedTest
     @MethodSource
     void testField(String test, Ast.Field ast, Object expected) {
@@ -136,6 +175,18 @@ final class InterpreterTests {
         Assertions.assertEquals(BigInteger.ONE, scope.lookupVariable("variable").getValue().getValue());
     }
 
+    @Test
+    void testUndefinedVariableAssignmentStatement() {
+        Scope scope = new Scope(null);
+        Interpreter interpreter = new Interpreter(scope);
+        RuntimeException exception = Assertions.assertThrows(RuntimeException.class, () -> interpreter.visit(new Ast.Stmt.Assignment(
+                new Ast.Expr.Access(Optional.empty(), "undefined"),
+                new Ast.Expr.Literal(BigInteger.ONE)
+        )));
+        Assertions.assertEquals("The variable undefined is not defined in this scope.", exception.getMessage());
+        Assertions.assertNull(interpreter.getScope().findVariable("undefined"));
+    }
+
     @Test
     void testFieldAssignmentStatement() {
         Scope scope = new Scope(null);
@@ -199,6 +250,178 @@ final class InterpreterTests {
         Assertions.assertEquals(BigInteger.TEN, scope.lookupVariable("sum").getValue().getValue());
     }
 
+    @ParameterizedTest
+    @MethodSource
+    void testRange(String test, List<Ast.Expr> arguments, BigInteger expected) {
+        Scope scope = new Scope(null);
+        scope.defineVariable("sum", Environment.create(BigInteger.ZERO));
+        test(new Ast.Stmt.For("num",
+                new Ast.Expr.Function(Optional.empty(), "range", arguments),
+                Arrays.asList(new Ast.Stmt.Assignment(
+                        new Ast.Expr.Access(Optional.empty(),"sum"),
+                        new Ast.Expr.Binary("+",
+                                new Ast.Expr.Access(Optional.empty(),"sum"),
+                                new Ast.Expr.Access(Optional.empty(),"num")
+                        )
+                ))
+        ), expected != null ? Environment.NIL.getValue() : null, scope);
+        if (expected != null) {
+            Assertions.assertEquals(expected, scope.lookupVariable("sum").getValue().getValue());
+        }
+    }
+
+    private static Stream<Arguments> testRange() {
+        BigInteger large = BigInteger.valueOf(Long.MAX_VALUE).add(BigInteger.ONE);
+        return Stream.of(
+                Arguments.of("Start End", Arrays.asList(TestFixtures.literal(0), TestFixtures.literal(10)), BigInteger.valueOf(45)),
+                Arguments.of("Step", Arrays.asList(TestFixtures.literal(0), TestFixtures.literal(10), TestFixtures.literal(3)), BigInteger.valueOf(18)),
+                Arguments.of("Negative Step", Arrays.asList(TestFixtures.literal(10), TestFixtures.literal(0), TestFixtures.literal(-4)), BigInteger.valueOf(18)),
+                Arguments.of("Empty", Arrays.asList(TestFixtures.literal(10), TestFixtures.literal(0)), BigInteger.ZERO),
+                Arguments.of("Long Overflow", Arrays.asList(TestFixtures.literal(Long.MAX_VALUE - 1), TestFixtures.literal(Long.MAX_VALUE), TestFixtures.literal(Long.MAX_VALUE)), BigInteger.valueOf(Long.MAX_VALUE - 1)),
+                Arguments.of("Beyond Long", Arrays.asList(new Ast.Expr.Literal(large), new Ast.Expr.Literal(large.add(BigInteger.valueOf(2)))), large.multiply(BigInteger.valueOf(2)).add(BigInteger.ONE)),
+                Arguments.of("Zero Step", Arrays.asList(TestFixtures.literal(0), TestFixtures.literal(10), TestFixtures.literal(0)), null)
+        );
+    }
+
+    @Test
+    void testGenerator() {
+        int[] next = {0};
+        Scope scope = new Scope(null);
+        scope.defineVariable("sum", Environment.create(BigInteger.ZERO));
+        scope.defineVariable("numbers", Environment.create(Generator.of(() ->
+                next[0] < 5 ? Environment.create(BigInteger.valueOf(next[0]++)) : null)));
+        Ast.Stmt.For loop = new Ast.Stmt.For("num",
+                new Ast.Expr.Access(Optional.empty(), "numbers"),
+                Arrays.asList(new Ast.Stmt.Assignment(
+                        new Ast.Expr.Access(Optional.empty(),"sum"),
+                        new Ast.Expr.Binary("+",
+                                new Ast.Expr.Access(Optional.empty(),"sum"),
+                                new Ast.Expr.Access(Optional.empty(),"num")
+                        )
+                ))
+        );
+        test(loop, Environment.NIL.getValue(), scope);
+        Assertions.assertEquals(BigInteger.TEN, scope.lookupVariable("sum").getValue().getValue());
+        test(loop, null, scope);
+    }
+
+    @Test
+    void testLines(@TempDir Path directory) throws IOException {
+        Path input = directory.resolve("input.txt");
+        Path output = directory.resolve("output.txt");
+        Files.write(input, Arrays.asList("a", "bc", "", "def"));
+        Scope scope = files();
+        scope.defineVariable("count", Environment.create(BigInteger.ZERO));
+        test(new Ast.Stmt.For("line",
+                new Ast.Expr.Function(Optional.empty(), "lines", Arrays.asList(new Ast.Expr.Literal(input.toString()))),
+                Arrays.asList(new Ast.Stmt.Assignment(
+                        new Ast.Expr.Access(Optional.empty(),"count"),
+                        new Ast.Expr.Binary("+",
+                                new Ast.Expr.Access(Optional.empty(),"count"),
+                                new Ast.Expr.Literal(BigInteger.ONE)
+                        )
+                ))
+        ), Environment.NIL.getValue(), scope);
+        Assertions.assertEquals(BigInteger.valueOf(4), scope.lookupVariable("count").getValue().getValue());
+        test(new Ast.Expr.Function(Optional.empty(), "writeLines", Arrays.asList(
+                new Ast.Expr.Literal(output.toString()),
+                new Ast.Expr.Function(Optional.empty(), "lines", Arrays.asList(new Ast.Expr.Literal(input.toString())))
+        )), Environment.NIL.getValue(), files());
+        Assertions.assertEquals(Files.readAllLines(input), Files.readAllLines(output));
+        test(new Ast.Expr.Function(Optional.empty(), "lines", Arrays.asList(new Ast.Expr.Literal(BigInteger.ONE))), null, files());
+    }
+
+    @Test
+    void testLinesNotBound(@TempDir Path directory) throws IOException {
+        Path input = directory.resolve("input.txt");
+        Files.write(input, Arrays.asList("a"));
+        // File access is only available to hosts that bind FileBuiltins.
+        test(new Ast.Expr.Function(Optional.empty(), "lines", Arrays.asList(new Ast.Expr.Literal(input.toString()))), null, new Scope(null));
+        test(new Ast.Expr.Function(Optional.empty(), "writeLines", Arrays.asList(
+                new Ast.Expr.Literal(directory.resolve("output.txt").toString()),
+                new Ast.Expr.Function(Optional.empty(), "list", Arrays.asList())
+        )), null, new Scope(null));
+        Assertions.assertFalse(Files.exists(directory.resolve("output.txt")));
+    }
+
+    @Test
+    void testWriteLinesFailure(@TempDir Path directory) {
+        AtomicBoolean closed = new AtomicBoolean();
+        Scope scope = files();
+        scope.defineVariable("source", Environment.create((Iterable<Environment.PlcObject>) () -> new CloseableIterator(closed)));
+        test(new Ast.Expr.Function(Optional.empty(), "writeLines", Arrays.asList(
+                new Ast.Expr.Literal(directory.resolve("missing").resolve("output.txt").toString()),
+                new Ast.Expr.Access(Optional.empty(), "source")
+        )), null, scope);
+        Assertions.assertTrue(closed.get());
+    }
+
+    @Test
+    void testParallelForStatement() {
+        LongAdder sum = new LongAdder();
+        Scope scope = new Scope(null);
+        scope.defineFunction(Environment.Function.of("add", 1, args -> {
+            sum.add(((BigInteger) args[0].getValue()).longValue());
+            return Environment.NIL;
+        }));
+        scope.defineVariable("list", Environment.create(IntStream.range(0, 1000)
+                .mapToObj(i -> Environment.create(BigInteger.valueOf(i)))
+                .collect(Collectors.toList())));
+        test(new Ast.Stmt.For("num",
+                new Ast.Expr.Access(Optional.empty(), "list"),
+                Arrays.asList(
+                        new Ast.Stmt.Declaration("twice", Optional.of(new Ast.Expr.Binary("*",
+                                new Ast.Expr.Access(Optional.empty(), "num"),
+                                new Ast.Expr.Literal(BigInteger.valueOf(2))
+                        ))),
+                        new Ast.Stmt.Expression(new Ast.Expr.Function(Optional.empty(), "add", Arrays.asList(
+                                new Ast.Expr.Access(Optional.empty(), "twice")
+                        )))
+                ),
+                true
+        ), Environment.NIL.getValue(), scope);
+        Assertions.assertEquals(999000, sum.sum());
+    }
+
+    @Test
+    void testParallelForRange() {
+        LongAdder sum = new LongAdder();
+        Scope scope = new Scope(null);
+        scope.defineFunction(Environment.Function.of("add", 1, args -> {
+            sum.add(((BigInteger) args[0].getValue()).longValue());
+            return Environment.NIL;
+        }));
+        // The range is read in chunks rather than copied, so every element
+        // is still visited exactly once.
+        test(new Ast.Stmt.For("num",
+                new Ast.Expr.Function(Optional.empty(), "range", Arrays.asList(
+                        new Ast.Expr.Literal(BigInteger.ZERO),
+                        new Ast.Expr.Literal(BigInteger.valueOf(10000))
+                )),
+                Arrays.asList(new Ast.Stmt.Expression(new Ast.Expr.Function(Optional.empty(), "add", Arrays.asList(
+                        new Ast.Expr.Access(Optional.empty(), "num")
+                )))),
+                true
+        ), Environment.NIL.getValue(), scope);
+        Assertions.assertEquals(49995000, sum.sum());
+    }
+
+    @Test
+    void testParallelForOuterAssignment() {
+        Scope scope = new Scope(null);
+        scope.defineVariable("sum", Environment.create(BigInteger.ZERO));
+        scope.defineVariable("list", Environment.create(Arrays.asList(Environment.create(BigInteger.ONE))));
+        test(new Ast.Stmt.For("num",
+                new Ast.Expr.Access(Optional.empty(), "list"),
+                Arrays.asList(new Ast.Stmt.Assignment(
+                        new Ast.Expr.Access(Optional.empty(),"sum"),
+                        new Ast.Expr.Access(Optional.empty(),"num")
+                )),
+                true
+        ), null, scope);
+        Assertions.assertEquals(BigInteger.ZERO, scope.lookupVariable("sum").getValue().getValue());
+    }
+
     @Test
     void testWhileStatement() {
         Scope scope = new Scope(null);
@@ -255,6 +478,30 @@ final class InterpreterTests {
         );
     }
 
+    @Test
+    void testConcatenationLoop() {
+        Scope scope = new Scope(null);
+        scope.defineVariable("text", Environment.create(""));
+        scope.defineVariable("i", Environment.create(BigInteger.ZERO));
+        Ast.Expr text = new Ast.Expr.Access(Optional.empty(), "text");
+        Ast.Expr i = new Ast.Expr.Access(Optional.empty(), "i");
+        test(new Ast.Stmt.While(
+                new Ast.Expr.Binary("<", i, new Ast.Expr.Literal(BigInteger.valueOf(1000))),
+                Arrays.asList(
+                        new Ast.Stmt.Assignment(text, new Ast.Expr.Binary("+", text, new Ast.Expr.Literal("ab"))),
+                        new Ast.Stmt.Assignment(i, new Ast.Expr.Binary("+", i, new Ast.Expr.Literal(BigInteger.ONE)))
+                )
+        ), Environment.NIL.getValue(), scope);
+        String expected = String.join("", java.util.Collections.nCopies(1000, "ab"));
+        Environment.PlcObject prefix = scope.lookupVariable("text").getValue();
+        scope.defineVariable("prefix", prefix);
+        Ast.Expr branch = new Ast.Expr.Binary("+", new Ast.Expr.Access(Optional.empty(), "prefix"), new Ast.Expr.Literal("c"));
+        test(new Ast.Stmt.Assignment(text, new Ast.Expr.Binary("+", text, new Ast.Expr.Literal("d"))), Environment.NIL.getValue(), scope);
+        test(branch, expected + "c", scope);
+        test(new Ast.Expr.Binary("==", text, new Ast.Expr.Literal(expected + "d")), true, scope);
+        Assertions.assertEquals(expected, prefix.getValue());
+    }
+
     @ParameterizedTest
     @MethodSource
     void testBinaryExpression(String test, Ast ast, Object expected) {
@@ -374,6 +621,12 @@ final class InterpreterTests {
         );
     }
 
+    private static Scope files() {
+        Scope scope = new Scope(null);
+        BuiltinBinder.bind(FileBuiltins.class, scope);
+        return scope;
+    }
+
     private static Scope test(Ast ast, Object expected, Scope scope) {
         Interpreter interpreter = new Interpreter(scope);
         if (expected != null) {
@@ -384,4 +637,29 @@ final class InterpreterTests {
         return interpreter.getScope();
     }
 
+    private static final class CloseableIterator implements Iterator<Environment.PlcObject>, AutoCloseable {
+
+        private final AtomicBoolean closed;
+
+        private CloseableIterator(AtomicBoolean closed) {
+            this.closed = closed;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return true;
+        }
+
+        @Override
+        public Environment.PlcObject next() {
+            return Environment.create("line");
+        }
+
+        @Override
+        public void close() {
+            closed.set(true);
+        }
+
+    }
+
 }
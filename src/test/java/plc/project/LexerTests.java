@@ -23,7 +23,10 @@ public class LexerTests {
                 Arguments.of("Alphabetic", "getName", true),
                 Arguments.of("Alphanumeric", "thelegend27", true),
                 Arguments.of("Leading Hyphen", "-five", false),
-                Arguments.of("Leading Digit", "1fish2fish3fishbluefish", false)
+                Arguments.of("Leading Digit", "1fish2fish3fishbluefish", false),
+                Arguments.of("Single Character", "x", true),
+                Arguments.of("Odd Length", "abc", true),
+                Arguments.of("Underscores and Hyphens", "get_name-2", true)
         );
     }
 
@@ -40,7 +43,10 @@ public class LexerTests {
                 Arguments.of("Decimal", "123.456", false),
                 Arguments.of("Signed Decimal", "-1.0", false),
                 Arguments.of("Trailing Decimal", "1.", false),
-                Arguments.of("Leading Decimal", ".5", false)
+                Arguments.of("Leading Decimal", ".5", false),
+                Arguments.of("Negative", "-1", true),
+                Arguments.of("Positive Sign", "+42", true),
+                Arguments.of("Sign Without Digits", "-", false)
         );
     }
 
@@ -102,6 +108,7 @@ public class LexerTests {
         return Stream.of(
                 Arguments.of("Character", "(", true),
                 Arguments.of("Comparison", "<=", true),
+                Arguments.of("Minus", "-", true),
                 Arguments.of("Space", " ", false),
                 Arguments.of("Tab", "\t", false)
         );
@@ -128,6 +135,24 @@ public class LexerTests {
                         new Token(Token.Type.STRING, "\"Hello, World!\"", 6),
                         new Token(Token.Type.OPERATOR, ")", 21),
                         new Token(Token.Type.OPERATOR, ";", 22)
+                )),
+                Arguments.of("Subtraction", "fib(n - 1)", Arrays.asList(
+                        new Token(Token.Type.IDENTIFIER, "fib", 0),
+                        new Token(Token.Type.OPERATOR, "(", 3),
+                        new Token(Token.Type.IDENTIFIER, "n", 4),
+                        new Token(Token.Type.OPERATOR, "-", 6),
+                        new Token(Token.Type.INTEGER, "1", 8),
+                        new Token(Token.Type.OPERATOR, ")", 9)
+                )),
+                Arguments.of("Signed Operand", "n -1", Arrays.asList(
+                        new Token(Token.Type.IDENTIFIER, "n", 0),
+                        new Token(Token.Type.INTEGER, "-1", 2)
+                )),
+                Arguments.of("Odd Length Identifier", "list(x)", Arrays.asList(
+                        new Token(Token.Type.IDENTIFIER, "list", 0),
+                        new Token(Token.Type.OPERATOR, "(", 4),
+                        new Token(Token.Type.IDENTIFIER, "x", 5),
+                        new Token(Token.Type.OPERATOR, ")", 6)
                 ))
         );
     }
@@ -0,0 +1,46 @@
+package plc.project;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+
+final class OutputSinkTests {
+
+    @Test
+    void testBuffered() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        OutputSink sink = OutputSink.buffered(new PrintStream(out), 16);
+        sink.println("short");
+        Assertions.assertEquals("", out.toString());
+        sink.println("longer line");
+        Assertions.assertEquals("short" + System.lineSeparator() + "longer line" + System.lineSeparator(), out.toString());
+        sink.println(1);
+        sink.flush();
+        Assertions.assertTrue(out.toString().endsWith("1" + System.lineSeparator()));
+    }
+
+    @Test
+    void testStandardOutput() {
+        PrintStream previous = System.out;
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        System.setOut(new PrintStream(out));
+        try {
+            // The default sink writes each line immediately, without a flush.
+            new Interpreter(new Scope(null)).visit(TestFixtures.call("print", new Ast.Expr.Literal("Hello")));
+            Assertions.assertEquals("Hello" + System.lineSeparator(), out.toString());
+        } finally {
+            System.setOut(previous);
+        }
+    }
+
+    @Test
+    void testCapture() {
+        OutputSink.Capture capture = OutputSink.capture();
+        capture.println("Hello");
+        capture.println(Environment.NIL.getValue());
+        Assertions.assertEquals("Hello" + System.lineSeparator() + "nil" + System.lineSeparator(), capture.getOutput());
+    }
+
+}
@@ -187,6 +187,56 @@ final class ParserTests {
                                 Arrays.asList(new Ast.Stmt.Expression(new Ast.Expr.Access(Optional.empty(), "stmt1"))),
                                 Arrays.asList(new Ast.Stmt.Expression(new Ast.Expr.Access(Optional.empty(), "stmt2")))
                         )
+                ),
+                Arguments.of("Multiple Statements",
+                        Arrays.asList(
+                                //IF expr DO stmt1; stmt2; END
+                                new Token(Token.Type.IDENTIFIER, "IF", 0),
+                                new Token(Token.Type.IDENTIFIER, "expr", 3),
+                                new Token(Token.Type.IDENTIFIER, "DO", 8),
+                                new Token(Token.Type.IDENTIFIER, "stmt1", 11),
+                                new Token(Token.Type.OPERATOR, ";", 16),
+                                new Token(Token.Type.IDENTIFIER, "stmt2", 18),
+                                new Token(Token.Type.OPERATOR, ";", 23),
+                                new Token(Token.Type.IDENTIFIER, "END", 25)
+                        ),
+                        new Ast.Stmt.If(
+                                new Ast.Expr.Access(Optional.empty(), "expr"),
+                                Arrays.asList(
+                                        new Ast.Stmt.Expression(new Ast.Expr.Access(Optional.empty(), "stmt1")),
+                                        new Ast.Stmt.Expression(new Ast.Expr.Access(Optional.empty(), "stmt2"))
+                                ),
+                                Arrays.asList()
+                        )
+                ),
+                Arguments.of("Multiple Statements With Else",
+                        Arrays.asList(
+                                //IF expr DO stmt1; stmt2; ELSE stmt3; stmt4; END
+                                new Token(Token.Type.IDENTIFIER, "IF", 0),
+                                new Token(Token.Type.IDENTIFIER, "expr", 3),
+                                new Token(Token.Type.IDENTIFIER, "DO", 8),
+                                new Token(Token.Type.IDENTIFIER, "stmt1", 11),
+                                new Token(Token.Type.OPERATOR, ";", 16),
+                                new Token(Token.Type.IDENTIFIER, "stmt2", 18),
+                                new Token(Token.Type.OPERATOR, ";", 23),
+                                new Token(Token.Type.IDENTIFIER, "ELSE", 25),
+                                new Token(Token.Type.IDENTIFIER, "stmt3", 30),
+                                new Token(Token.Type.OPERATOR, ";", 35),
+                                new Token(Token.Type.IDENTIFIER, "stmt4", 37),
+                                new Token(Token.Type.OPERATOR, ";", 42),
+                                new Token(Token.Type.IDENTIFIER, "END", 44)
+                        ),
+                        new Ast.Stmt.If(
+                                new Ast.Expr.Access(Optional.empty(), "expr"),
+                                Arrays.asList(
+                                        new Ast.Stmt.Expression(new Ast.Expr.Access(Optional.empty(), "stmt1")),
+                                        new Ast.Stmt.Expression(new Ast.Expr.Access(Optional.empty(), "stmt2"))
+                                ),
+                                Arrays.asList(
+                                        new Ast.Stmt.Expression(new Ast.Expr.Access(Optional.empty(), "stmt3")),
+                                        new Ast.Stmt.Expression(new Ast.Expr.Access(Optional.empty(), "stmt4"))
+                                )
+                        )
                 )
         );
     }
@@ -216,6 +266,26 @@ final class ParserTests {
                                 new Ast.Expr.Access(Optional.empty(), "list"),
                                 Arrays.asList(new Ast.Stmt.Expression(new Ast.Expr.Access(Optional.empty(), "stmt")))
                         )
+                ),
+                Arguments.of("Parallel For",
+                        Arrays.asList(
+                                //PARALLEL FOR elem IN list DO stmt; END
+                                new Token(Token.Type.IDENTIFIER, "PARALLEL", 0),
+                                new Token(Token.Type.IDENTIFIER, "FOR", 9),
+                                new Token(Token.Type.IDENTIFIER, "elem", 13),
+                                new Token(Token.Type.IDENTIFIER, "IN", 18),
+                                new Token(Token.Type.IDENTIFIER, "list", 21),
+                                new Token(Token.Type.IDENTIFIER, "DO", 26),
+                                new Token(Token.Type.IDENTIFIER, "stmt", 29),
+                                new Token(Token.Type.OPERATOR, ";", 33),
+                                new Token(Token.Type.IDENTIFIER, "END", 35)
+                        ),
+                        new Ast.Stmt.For(
+                                "elem",
+                                new Ast.Expr.Access(Optional.empty(), "list"),
+                                Arrays.asList(new Ast.Stmt.Expression(new Ast.Expr.Access(Optional.empty(), "stmt"))),
+                                true
+                        )
                 )
         );
     }
@@ -390,6 +460,91 @@ final class ParserTests {
                                 new Ast.Expr.Access(Optional.empty(), "expr1"),
                                 new Ast.Expr.Access(Optional.empty(), "expr2")
                         )
+                ),
+                Arguments.of("Left Associative",
+                        Arrays.asList(
+                                //expr1 - expr2 - expr3
+                                new Token(Token.Type.IDENTIFIER, "expr1", 0),
+                                new Token(Token.Type.OPERATOR, "-", 6),
+                                new Token(Token.Type.IDENTIFIER, "expr2", 8),
+                                new Token(Token.Type.OPERATOR, "-", 14),
+                                new Token(Token.Type.IDENTIFIER, "expr3", 16)
+                        ),
+                        new Ast.Expr.Binary("-",
+                                new Ast.Expr.Binary("-",
+                                        new Ast.Expr.Access(Optional.empty(), "expr1"),
+                                        new Ast.Expr.Access(Optional.empty(), "expr2")
+                                ),
+                                new Ast.Expr.Access(Optional.empty(), "expr3")
+                        )
+                ),
+                Arguments.of("Multiplicative Left Associative",
+                        Arrays.asList(
+                                //expr1 / expr2 * expr3
+                                new Token(Token.Type.IDENTIFIER, "expr1", 0),
+                                new Token(Token.Type.OPERATOR, "/", 6),
+                                new Token(Token.Type.IDENTIFIER, "expr2", 8),
+                                new Token(Token.Type.OPERATOR, "*", 14),
+                                new Token(Token.Type.IDENTIFIER, "expr3", 16)
+                        ),
+                        new Ast.Expr.Binary("*",
+                                new Ast.Expr.Binary("/",
+                                        new Ast.Expr.Access(Optional.empty(), "expr1"),
+                                        new Ast.Expr.Access(Optional.empty(), "expr2")
+                                ),
+                                new Ast.Expr.Access(Optional.empty(), "expr3")
+                        )
+                ),
+                Arguments.of("Comparison Left Associative",
+                        Arrays.asList(
+                                //expr1 < expr2 == expr3
+                                new Token(Token.Type.IDENTIFIER, "expr1", 0),
+                                new Token(Token.Type.OPERATOR, "<", 6),
+                                new Token(Token.Type.IDENTIFIER, "expr2", 8),
+                                new Token(Token.Type.OPERATOR, "==", 14),
+                                new Token(Token.Type.IDENTIFIER, "expr3", 17)
+                        ),
+                        new Ast.Expr.Binary("==",
+                                new Ast.Expr.Binary("<",
+                                        new Ast.Expr.Access(Optional.empty(), "expr1"),
+                                        new Ast.Expr.Access(Optional.empty(), "expr2")
+                                ),
+                                new Ast.Expr.Access(Optional.empty(), "expr3")
+                        )
+                ),
+                Arguments.of("Logical Left Associative",
+                        Arrays.asList(
+                                //expr1 AND expr2 OR expr3
+                                new Token(Token.Type.IDENTIFIER, "expr1", 0),
+                                new Token(Token.Type.IDENTIFIER, "AND", 6),
+                                new Token(Token.Type.IDENTIFIER, "expr2", 10),
+                                new Token(Token.Type.IDENTIFIER, "OR", 16),
+                                new Token(Token.Type.IDENTIFIER, "expr3", 19)
+                        ),
+                        new Ast.Expr.Binary("OR",
+                                new Ast.Expr.Binary("AND",
+                                        new Ast.Expr.Access(Optional.empty(), "expr1"),
+                                        new Ast.Expr.Access(Optional.empty(), "expr2")
+                                ),
+                                new Ast.Expr.Access(Optional.empty(), "expr3")
+                        )
+                ),
+                Arguments.of("Precedence",
+                        Arrays.asList(
+                                //expr1 + expr2 * expr3
+                                new Token(Token.Type.IDENTIFIER, "expr1", 0),
+                                new Token(Token.Type.OPERATOR, "+", 6),
+                                new Token(Token.Type.IDENTIFIER, "expr2", 8),
+                                new Token(Token.Type.OPERATOR, "*", 14),
+                                new Token(Token.Type.IDENTIFIER, "expr3", 16)
+                        ),
+                        new Ast.Expr.Binary("+",
+                                new Ast.Expr.Access(Optional.empty(), "expr1"),
+                                new Ast.Expr.Binary("*",
+                                        new Ast.Expr.Access(Optional.empty(), "expr2"),
+                                        new Ast.Expr.Access(Optional.empty(), "expr3")
+                                )
+                        )
                 )
         );
     }
@@ -0,0 +1,81 @@
+package plc.project;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+final class ProfilerTests {
+
+    private static final String SOURCE = String.join("\n",
+            "DEF fib(n) DO",
+            "    IF n < 2 DO",
+            "        RETURN n;",
+            "    END",
+            "    RETURN fib(n - 1) + fib(n - 2);",
+            "END",
+            "",
+            "DEF main() DO",
+            "    RETURN fib(10);",
+            "END");
+
+    @Test
+    void testOffsets() {
+        Ast.Source ast = new Parser(new Lexer(SOURCE).lex()).parseSource();
+        Ast.Method fib = ast.getMethods().get(0);
+        Assertions.assertEquals(0, fib.getOffset());
+        Assertions.assertEquals(SOURCE.indexOf("IF"), fib.getStatements().get(0).getOffset());
+        Assertions.assertEquals(SOURCE.indexOf("RETURN n"), ((Ast.Stmt.If) fib.getStatements().get(0)).getThenStatements().get(0).getOffset());
+        Assertions.assertEquals(SOURCE.indexOf("DEF main"), ast.getMethods().get(1).getOffset());
+    }
+
+    @Test
+    void testProfile() throws IOException {
+        Ast.Source ast = new Parser(new Lexer(SOURCE).lex()).parseSource();
+        Interpreter interpreter = new Interpreter(new Scope(null));
+        Profiler profiler = new Profiler(SOURCE);
+        interpreter.setProfiler(profiler);
+        Assertions.assertEquals(BigInteger.valueOf(55), interpreter.visit(ast).getValue());
+
+        Map<String, Profiler.Entry> entries = profiler.getEntries().stream()
+                .collect(Collectors.toMap(Profiler.Entry::getLabel, Function.identity()));
+        Assertions.assertEquals(1, entries.get("main/0").getCalls());
+        Assertions.assertEquals(177, entries.get("fib/1").getCalls());
+        Assertions.assertEquals(177, entries.get("If 2:5").getCalls());
+        Assertions.assertEquals(89, entries.get("Return 3:9").getCalls());
+        Assertions.assertEquals(88, entries.get("Return 5:5").getCalls());
+        // Recursive invocations are not counted twice, so fib's inclusive
+        // time is bounded by main's.
+        Assertions.assertTrue(entries.get("fib/1").getInclusiveNanos() <= entries.get("main/0").getInclusiveNanos());
+        for (Profiler.Entry entry : entries.values()) {
+            Assertions.assertTrue(entry.getExclusiveNanos() <= entry.getInclusiveNanos(), entry.toString());
+        }
+
+        StringBuilder collapsed = new StringBuilder();
+        profiler.writeCollapsed(collapsed);
+        List<String> lines = collapsed.toString().lines().collect(Collectors.toList());
+        Assertions.assertTrue(lines.stream().anyMatch(line -> line.startsWith("main/0;Return 9:5;fib/1;Return 5:5;fib/1;If 2:5 ")), collapsed.toString());
+        long total = lines.stream().mapToLong(line -> Long.parseLong(line.substring(line.lastIndexOf(' ') + 1))).sum();
+        Assertions.assertEquals(entries.get("main/0").getInclusiveNanos(), total);
+
+        String report = profiler.report(3);
+        Assertions.assertEquals(4, report.lines().count(), report);
+    }
+
+    @Test
+    void testDisabled() {
+        Ast.Source ast = new Parser(new Lexer(SOURCE).lex()).parseSource();
+        Interpreter interpreter = new Interpreter(new Scope(null));
+        Profiler profiler = new Profiler();
+        interpreter.setProfiler(profiler);
+        interpreter.setProfiler(null);
+        interpreter.visit(ast);
+        Assertions.assertTrue(profiler.getEntries().isEmpty());
+    }
+
+}
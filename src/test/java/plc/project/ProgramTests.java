@@ -0,0 +1,122 @@
+package plc.project;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+final class ProgramTests {
+
+    @Test
+    void testConcurrentExecutions() throws Exception {
+        Program program = new Program(TestFixtures.fibCounter());
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        try {
+            List<Future<Object>> results = new ArrayList<>();
+            for (int i = 0; i < 10_000; i++) {
+                Scope globals = new Scope(null);
+                globals.defineVariable("input", Environment.create(BigInteger.valueOf(i % 16)));
+                results.add(executor.submit(() -> program.execute(globals).getValue()));
+            }
+            for (int i = 0; i < results.size(); i++) {
+                Assertions.assertEquals(expected(i % 16), results.get(i).get(), "Execution " + i);
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void testCapturedOutput() throws Exception {
+        Ast.Expr input = new Ast.Expr.Access(Optional.empty(), "input");
+        Program program = new Program(new Ast.Source(Arrays.asList(), Arrays.asList(
+                new Ast.Method("main", Arrays.asList(), Arrays.asList(
+                        new Ast.Stmt.Expression(TestFixtures.call("print", input)),
+                        new Ast.Stmt.Expression(TestFixtures.call("print", new Ast.Expr.Binary("*", input, TestFixtures.literal(2)))),
+                        new Ast.Stmt.Return(input)
+                ))
+        )));
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        try {
+            List<OutputSink.Capture> captures = new ArrayList<>();
+            List<Future<Object>> results = new ArrayList<>();
+            for (int i = 0; i < 1000; i++) {
+                Scope globals = new Scope(null);
+                globals.defineVariable("input", Environment.create(BigInteger.valueOf(i)));
+                OutputSink.Capture capture = OutputSink.capture();
+                captures.add(capture);
+                results.add(executor.submit(() -> program.execute(globals, capture).getValue()));
+            }
+            for (int i = 0; i < results.size(); i++) {
+                results.get(i).get();
+                Assertions.assertEquals(i + System.lineSeparator() + 2 * i + System.lineSeparator(), captures.get(i).getOutput());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void testReusedGlobals() {
+        Program program = new Program(TestFixtures.fibCounter());
+        Scope globals = new Scope(null);
+        globals.defineVariable("input", Environment.create(BigInteger.TEN));
+        Assertions.assertEquals(expected(10), program.execute(globals).getValue());
+        Assertions.assertEquals(expected(10), program.execute(globals).getValue());
+    }
+
+    @Test
+    void testBlockScopes() {
+        Program program = new Program(new Parser(new Lexer(String.join("\n",
+                "DEF main() DO",
+                "    LET sum = 0;",
+                "    LET i = 0;",
+                "    WHILE i < 3 DO",
+                "        LET square = i * i;",
+                "        sum = sum + square;",
+                "        i = i + 1;",
+                "    END",
+                "    IF sum == 5 DO",
+                "        sum = sum * 2;",
+                "    END",
+                "    RETURN sum;",
+                "END")).lex()).parseSource());
+        Assertions.assertTrue(program.declares(((Ast.Stmt.While) program.getSource().getMethods().get(0).getStatements().get(2)).getStatements()));
+        Assertions.assertFalse(program.declares(((Ast.Stmt.If) program.getSource().getMethods().get(0).getStatements().get(3)).getThenStatements()));
+        Assertions.assertEquals(BigInteger.TEN, program.execute(new Scope(null)).getValue());
+    }
+
+    @Test
+    void testUndeclaredAssignmentInBlock() {
+        Program program = new Program(new Parser(new Lexer(String.join("\n",
+                "DEF main() DO",
+                "    LET i = 0;",
+                "    WHILE i < 2 DO",
+                "        tmp = i;",
+                "        i = i + 1;",
+                "    END",
+                "    RETURN tmp;",
+                "END")).lex()).parseSource());
+        // The body has no declaration and runs in the enclosing scope, which
+        // is only sound because the assignment cannot define tmp there.
+        RuntimeException exception = Assertions.assertThrows(RuntimeException.class, () -> program.execute(new Scope(null)));
+        Assertions.assertEquals("The variable tmp is not defined in this scope.", exception.getMessage());
+    }
+
+    private static Object expected(int input) {
+        long[] fib = new long[input + 2];
+        fib[1] = 1;
+        for (int k = 2; k < fib.length; k++) {
+            fib[k] = fib[k - 1] + fib[k - 2];
+        }
+        return BigInteger.valueOf(fib[input] * 100000 + 2 * fib[input + 1] - 1);
+    }
+
+}
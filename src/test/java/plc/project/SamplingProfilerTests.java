@@ -0,0 +1,87 @@
+package plc.project;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+
+final class SamplingProfilerTests {
+
+    private static final String SOURCE = String.join("\n",
+            "DEF fib(n) DO",
+            "    IF n < 2 DO",
+            "        RETURN n;",
+            "    END",
+            "    RETURN fib(n - 1) + fib(n - 2);",
+            "END",
+            "",
+            "DEF main() DO",
+            "    RETURN fib(16);",
+            "END");
+
+    @Test
+    void testShadowStack() {
+        Ast.Method method = new Ast.Method("main", Collections.emptyList(), Collections.emptyList());
+        Ast.Stmt statement = new Ast.Stmt.Expression(new Ast.Expr.Literal(null));
+        ShadowStack stack = new ShadowStack();
+        Assertions.assertEquals(Collections.emptyList(), stack.snapshot());
+        for (int i = 0; i < 100; i++) {
+            stack.push(method);
+        }
+        stack.statement(statement);
+        Assertions.assertEquals(101, stack.snapshot().size());
+        Assertions.assertSame(statement, stack.snapshot().get(100));
+        for (int i = 0; i < 99; i++) {
+            stack.pop();
+        }
+        Assertions.assertEquals(Arrays.asList(method), stack.snapshot());
+        stack.pop();
+        Assertions.assertEquals(Collections.emptyList(), stack.snapshot());
+    }
+
+    @Test
+    void testTopLevelStatements() {
+        Ast.Stmt statement = new Parser(new Lexer("IF TRUE DO IF TRUE DO LET x = 1; END LET y = 2; END").lex()).parseStatement();
+        ShadowStack stack = new ShadowStack();
+        Interpreter interpreter = new Interpreter(new Scope(null));
+        interpreter.setShadowStack(stack);
+        interpreter.visit(statement);
+        // Slot 0 is cleared once the outermost block completes, so the idle
+        // interpreter is no longer sampled.
+        Assertions.assertEquals(Collections.emptyList(), stack.snapshot());
+    }
+
+    @Test
+    void testSampling() throws IOException {
+        Ast.Source ast = new Parser(new Lexer(SOURCE).lex()).parseSource();
+        Interpreter interpreter = new Interpreter(new Scope(null));
+        try (SamplingProfiler profiler = new SamplingProfiler(Duration.ofMillis(1), SOURCE)) {
+            profiler.attach(interpreter);
+            long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+            while (profiler.getSamples() < 20 && System.nanoTime() < deadline) {
+                interpreter.visit(ast);
+            }
+            profiler.detach(interpreter);
+            long samples = profiler.getSamples();
+            Assertions.assertTrue(samples >= 20, "samples: " + samples);
+            interpreter.visit(ast);
+
+            // Every node, since the few with the most self samples need not
+            // include fib/1, whose samples are mostly in its statements.
+            String report = profiler.report(100);
+            Assertions.assertTrue(report.contains("fib/1"), report);
+            StringBuilder collapsed = new StringBuilder();
+            profiler.writeCollapsed(collapsed);
+            long total = 0;
+            for (String line : collapsed.toString().split("\n")) {
+                Assertions.assertTrue(line.startsWith("main/0"), line);
+                total += Long.parseLong(line.substring(line.lastIndexOf(' ') + 1));
+            }
+            Assertions.assertEquals(profiler.getSamples(), total);
+        }
+    }
+
+}
@@ -0,0 +1,131 @@
+package plc.project;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigInteger;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+final class ScriptExecutorTests {
+
+    @Test
+    void testSubmit() throws Exception {
+        Program program = new Program(main(new Ast.Stmt.Return(TestFixtures.call("fib", TestFixtures.literal(15)))));
+        try (ScriptExecutor executor = new ScriptExecutor(4, Duration.ofSeconds(10))) {
+            Assertions.assertEquals(BigInteger.valueOf(610), executor.submit(program, new Scope(null)).get().getValue());
+        }
+    }
+
+    @Test
+    void testTimeout() throws Exception {
+        try (ScriptExecutor executor = new ScriptExecutor(1, Duration.ofSeconds(10))) {
+            CompletableFuture<Environment.PlcObject> future = executor.submit(new Program(loop()), new Scope(null), Duration.ofMillis(100));
+            ExecutionException exception = Assertions.assertThrows(ExecutionException.class, future::get);
+            Assertions.assertTrue(exception.getCause() instanceof TimeoutException);
+            assertReleased(executor);
+        }
+    }
+
+    @Test
+    void testCancel() throws Exception {
+        try (ScriptExecutor executor = new ScriptExecutor(1, Duration.ofSeconds(10))) {
+            CompletableFuture<Environment.PlcObject> future = executor.submit(new Program(loop()), new Scope(null));
+            Thread.sleep(50);
+            Assertions.assertTrue(future.cancel(true));
+            assertReleased(executor);
+        }
+    }
+
+    @Test
+    void testBoundedConcurrency() throws Exception {
+        AtomicInteger active = new AtomicInteger();
+        AtomicInteger peak = new AtomicInteger();
+        Scope bindings = new Scope(null);
+        bindings.defineFunction(Environment.Function.of("work", 0, args -> {
+            peak.accumulateAndGet(active.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(2);
+            } catch (InterruptedException e) {
+                throw new RuntimeException(e);
+            } finally {
+                active.decrementAndGet();
+            }
+            return Environment.NIL;
+        }));
+        Program program = new Program(main(new Ast.Stmt.Expression(TestFixtures.call("work"))));
+        try (ScriptExecutor executor = new ScriptExecutor(4, Duration.ofSeconds(10))) {
+            List<CompletableFuture<Environment.PlcObject>> futures = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                futures.add(executor.submit(program, bindings));
+            }
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).get();
+        }
+        Assertions.assertTrue(peak.get() <= 4, "Peak concurrency " + peak.get());
+    }
+
+    @Test
+    void testCloseCancelsJobs() throws Exception {
+        ScriptExecutor executor = new ScriptExecutor(1, Duration.ofMillis(100));
+        CompletableFuture<Environment.PlcObject> future = executor.submit(new Program(loop()), new Scope(null), Duration.ofMinutes(1));
+        // The job outlives the executor's default timeout, so close cancels
+        // it rather than waiting for its own timeout.
+        Assertions.assertTimeoutPreemptively(Duration.ofSeconds(5), executor::close);
+        Assertions.assertTrue(future.isCancelled());
+    }
+
+    @Test
+    void testCloseReportsStuckJobs() throws Exception {
+        AtomicBoolean released = new AtomicBoolean();
+        AtomicReference<String> thread = new AtomicReference<>();
+        Scope bindings = new Scope(null);
+        bindings.defineFunction(Environment.Function.of("work", 0, args -> {
+            thread.set(Thread.currentThread().getName());
+            // Ignores interrupts, like a host function blocked in native code.
+            while (!released.get()) {
+                Thread.onSpinWait();
+            }
+            return Environment.NIL;
+        }));
+        ScriptExecutor executor = new ScriptExecutor(1, Duration.ofMillis(100));
+        executor.submit(new Program(main(new Ast.Stmt.Expression(TestFixtures.call("work")))), bindings, Duration.ofMinutes(1));
+        try {
+            IllegalStateException exception = Assertions.assertThrows(IllegalStateException.class, executor::close);
+            Assertions.assertTrue(exception.getMessage().contains("1 jobs were still running"), exception.getMessage());
+            if (!executor.isVirtual()) {
+                Assertions.assertEquals("script-executor-1", thread.get());
+            }
+        } finally {
+            released.set(true);
+        }
+    }
+
+    /**
+     * Asserts that a cancelled job gave up its permit by running another job
+     * on a single-permit executor.
+     */
+    private static void assertReleased(ScriptExecutor executor) throws Exception {
+        Program program = new Program(main(new Ast.Stmt.Return(TestFixtures.literal(1))));
+        Assertions.assertEquals(BigInteger.ONE, executor.submit(program, new Scope(null), Duration.ofSeconds(10)).get().getValue());
+    }
+
+    private static Ast.Source main(Ast.Stmt stmt) {
+        return new Ast.Source(Arrays.asList(), Arrays.asList(
+                TestFixtures.fib(),
+                new Ast.Method("main", Arrays.asList(), Arrays.asList(stmt))
+        ));
+    }
+
+    private static Ast.Source loop() {
+        return main(new Ast.Stmt.While(new Ast.Expr.Literal(Boolean.TRUE), Arrays.asList()));
+    }
+
+}
@@ -0,0 +1,112 @@
+package plc.project;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Optional;
+
+/**
+ * AST factories and host bindings shared by the tests that build programs
+ * directly rather than parsing them.
+ */
+final class TestFixtures {
+
+    private TestFixtures() {}
+
+    /**
+     * {@code DEF fib(n) DO IF n < 2 DO RETURN n; END RETURN fib(n - 1) + fib(n - 2); END}
+     */
+    static Ast.Method fib() {
+        Ast.Expr n = access("n");
+        return new Ast.Method("fib", Arrays.asList("n"), Arrays.asList(
+                new Ast.Stmt.If(
+                        new Ast.Expr.Binary("<", n, literal(2)),
+                        Arrays.asList(new Ast.Stmt.Return(n)),
+                        Arrays.asList()
+                ),
+                new Ast.Stmt.Return(new Ast.Expr.Binary("+",
+                        call("fib", new Ast.Expr.Binary("-", n, literal(1))),
+                        call("fib", new Ast.Expr.Binary("-", n, literal(2)))
+                ))
+        ));
+    }
+
+    /**
+     * Returns {@code fib(input) * 100000 + calls}, where {@code calls} is a
+     * field counting invocations of {@code fib} and {@code input} is read from
+     * the host scope. The {@code WHILE} loop recomputes {@code input} with a
+     * declaration in its body so that block scopes are exercised as well.
+     */
+    static Ast.Source fibCounter() {
+        Ast.Expr n = access("n");
+        Ast.Expr i = access("i");
+        Ast.Expr calls = access("calls");
+        return new Ast.Source(
+                Arrays.asList(new Ast.Field("calls", Optional.of(literal(0)))),
+                Arrays.asList(
+                        new Ast.Method("fib", Arrays.asList("n"), Arrays.asList(
+                                new Ast.Stmt.Assignment(calls, new Ast.Expr.Binary("+", calls, literal(1))),
+                                new Ast.Stmt.If(
+                                        new Ast.Expr.Binary("<", n, literal(2)),
+                                        Arrays.asList(new Ast.Stmt.Return(n)),
+                                        Arrays.asList()
+                                ),
+                                new Ast.Stmt.Return(new Ast.Expr.Binary("+",
+                                        call("fib", new Ast.Expr.Binary("-", n, literal(1))),
+                                        call("fib", new Ast.Expr.Binary("-", n, literal(2)))
+                                ))
+                        )),
+                        new Ast.Method("main", Arrays.asList(), Arrays.asList(
+                                new Ast.Stmt.Declaration("i", Optional.of(literal(0))),
+                                new Ast.Stmt.While(
+                                        new Ast.Expr.Binary("<", i, access("input")),
+                                        Arrays.asList(
+                                                new Ast.Stmt.Declaration("next", Optional.of(new Ast.Expr.Binary("+", i, literal(1)))),
+                                                new Ast.Stmt.Assignment(i, access("next"))
+                                        )
+                                ),
+                                new Ast.Stmt.Return(new Ast.Expr.Binary("+",
+                                        new Ast.Expr.Binary("*", call("fib", i), literal(100000)),
+                                        calls
+                                ))
+                        ))
+                )
+        );
+    }
+
+    /**
+     * {@code LET count = 0; DEF main() DO count = count + 1; RETURN count + input; END},
+     * which returns {@code input + 1} only if {@code count} starts at zero.
+     */
+    static Ast.Source runCounter() {
+        Ast.Expr count = access("count");
+        return new Ast.Source(
+                Arrays.asList(new Ast.Field("count", Optional.of(literal(0)))),
+                Arrays.asList(new Ast.Method("main", Arrays.asList(), Arrays.asList(
+                        new Ast.Stmt.Assignment(count, new Ast.Expr.Binary("+", count, literal(1))),
+                        new Ast.Stmt.Return(new Ast.Expr.Binary("+", count, access("input")))
+                )))
+        );
+    }
+
+    /**
+     * Returns a host scope defining {@code input}, as read by the counters.
+     */
+    static Scope bindings(long input) {
+        Scope scope = new Scope(null);
+        scope.defineVariable("input", Environment.create(BigInteger.valueOf(input)));
+        return scope;
+    }
+
+    static Ast.Expr call(String name, Ast.Expr... arguments) {
+        return new Ast.Expr.Function(Optional.empty(), name, Arrays.asList(arguments));
+    }
+
+    static Ast.Expr access(String name) {
+        return new Ast.Expr.Access(Optional.empty(), name);
+    }
+
+    static Ast.Expr literal(long value) {
+        return new Ast.Expr.Literal(BigInteger.valueOf(value));
+    }
+
+}